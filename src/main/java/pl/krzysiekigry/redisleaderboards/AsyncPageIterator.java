@@ -0,0 +1,36 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A non-blocking iterator over the entries of a leaderboard, in pages of consecutive ranks.
+ * <p>
+ * Pages are requested only when {@link #next()} is called, plus the configured number of pages
+ * read ahead in one pipeline, so a consumer that waits for each page before asking for the next
+ * one never causes more than that to be buffered. {@link #next()} may also be called again before
+ * the previous page has arrived; pages are still delivered in rank order.
+ * </p>
+ *
+ * @param <T> the numeric type of the leaderboard scores
+ *
+ * @see Leaderboard#exportAsync(int, int) for creating iterators
+ * @see ExportStream for the blocking counterpart
+ */
+public final class AsyncPageIterator<T extends Number> {
+
+    private final PageIterator<List<Entry<T>>> pages;
+
+    AsyncPageIterator(PageIterator<List<Entry<T>>> pages) {
+        this.pages = pages;
+    }
+
+    /**
+     * Requests the next page of entries.
+     *
+     * @return a future completed with the next non-empty page, or with {@code null} after the last page
+     */
+    public CompletableFuture<List<Entry<T>>> next() {
+        return pages.nextAsync();
+    }
+}
@@ -0,0 +1,39 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A leaderboard entry whose member identifier is kept as the raw bytes stored in Redis.
+ * <p>
+ * Equality and hashing compare the contents of {@code id}.
+ * </p>
+ *
+ * @param <T> the numeric type of the score (e.g., Integer, Double, Long)
+ * @param id the binary identifier of the entry
+ * @param score the numeric score associated with this entry
+ * @param rank the current rank position of this entry in the leaderboard (1-based)
+ *
+ * @see Leaderboard#listBinary(long, long) for binary range reads
+ * @see Entry for the string based counterpart
+ */
+public record BinaryEntry<T extends Number>(byte[] id, T score, long rank) {
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof BinaryEntry<?> other
+                && rank == other.rank
+                && Arrays.equals(id, other.id)
+                && Objects.equals(score, other.score);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Arrays.hashCode(id) + Objects.hashCode(score)) + Long.hashCode(rank);
+    }
+
+    @Override
+    public String toString() {
+        return "BinaryEntry[id=" + Arrays.toString(id) + ", score=" + score + ", rank=" + rank + "]";
+    }
+}
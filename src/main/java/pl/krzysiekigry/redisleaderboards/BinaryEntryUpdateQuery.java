@@ -0,0 +1,14 @@
+package pl.krzysiekigry.redisleaderboards;
+
+/**
+ * An update query addressing the member by its raw bytes.
+ *
+ * @param <T> the numeric type of the value (e.g., Integer, Double, Long)
+ * @param id the binary identifier of the leaderboard entry to update
+ * @param value the numeric value to apply to the entry
+ *
+ * @see Leaderboard#updateBinary(java.util.List, UpdatePolicy) for batch binary updates
+ * @see EntryUpdateQuery for the string based counterpart
+ */
+public record BinaryEntryUpdateQuery<T extends Number>(byte[] id, T value) {
+}
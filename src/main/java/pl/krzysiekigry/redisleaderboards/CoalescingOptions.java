@@ -0,0 +1,34 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import java.time.Duration;
+
+/**
+ * Configuration of write coalescing for {@link Leaderboard#updateOne(String, Number, UpdatePolicy)}.
+ * <p>
+ * When coalescing is enabled, single-entry updates issued while another batch is in flight
+ * are gathered and sent together in one pipeline. A caller arriving at an idle leaderboard
+ * is flushed immediately, so the window only opens under concurrent load.
+ * </p>
+ *
+ * @param maxDelay the longest time an update may wait for the in-flight batch before it is flushed anyway
+ * @param maxBatchSize the number of gathered updates that triggers an immediate flush
+ *
+ * @see LeaderboardOptions#withCoalescing(CoalescingOptions) for enabling coalescing
+ */
+public record CoalescingOptions(Duration maxDelay, int maxBatchSize) {
+
+    /**
+     * Creates coalescing options, validating the parameters.
+     *
+     * @param maxDelay the longest time an update may wait for the in-flight batch before it is flushed anyway
+     * @param maxBatchSize the number of gathered updates that triggers an immediate flush
+     */
+    public CoalescingOptions {
+        if (maxDelay == null || maxDelay.isNegative()) {
+            throw new IllegalArgumentException("maxDelay must not be negative");
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+    }
+}
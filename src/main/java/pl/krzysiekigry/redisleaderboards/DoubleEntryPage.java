@@ -0,0 +1,50 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import java.util.List;
+
+/**
+ * A page of leaderboard entries with primitive {@code double} scores.
+ *
+ * @see DoubleLeaderboard for leaderboards returning these pages
+ */
+public final class DoubleEntryPage extends EntryPage<Double> {
+
+    private final double[] scores;
+
+    DoubleEntryPage(String[] ids, double[] scores, long firstRank) {
+        super(ids, firstRank);
+        this.scores = scores;
+    }
+
+    /**
+     * Decodes a flat {@code member, score, member, score...} reply into a page.
+     */
+    static DoubleEntryPage decode(List<Object> results, long firstRank, MemberCodec memberCodec) {
+        int size = results.size() / 2;
+        String[] ids = new String[size];
+        double[] scores = new double[size];
+        ReplyDecoder.forEachPair(results, (index, member, score) -> {
+            ids[index] = memberCodec.decode(member);
+            scores[index] = ReplyDecoder.parseScore(score);
+        });
+        return new DoubleEntryPage(ids, scores, firstRank);
+    }
+
+    public double score(int index) {
+        return scores[index];
+    }
+
+    /**
+     * Returns the scores of this page.
+     *
+     * @return the backing array of scores, which must not be modified
+     */
+    public double[] scores() {
+        return scores;
+    }
+
+    @Override
+    public Double boxedScore(int index) {
+        return scores[index];
+    }
+}
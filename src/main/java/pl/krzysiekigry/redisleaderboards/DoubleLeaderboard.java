@@ -0,0 +1,103 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A leaderboard specialized for primitive {@code double} scores.
+ * <p>
+ * Updates take parallel arrays of members and scores and do not decode the replies, and reads
+ * return {@link DoubleEntryPage}s backed by primitive arrays. The inherited {@link Entry} based
+ * methods keep working; {@link #list(long, long)} and everything built on it return a view over a
+ * page instead of a list of separately decoded entries.
+ * </p>
+ *
+ * @see Leaderboard for the generic API
+ */
+public class DoubleLeaderboard extends Leaderboard<Double> {
+
+    /**
+     * Creates a new leaderboard with {@code double} scores.
+     *
+     * @param redisExtension the Redis connection and script management extension
+     * @param key the Redis key to use for storing leaderboard data
+     * @param options the configuration options for this leaderboard
+     */
+    public DoubleLeaderboard(RedisExtension redisExtension, String key, LeaderboardOptions options) {
+        super(redisExtension, key, Double.class, options);
+    }
+
+    /**
+     * Updates the scores of the given members with the leaderboard's default update policy.
+     *
+     * @param ids the members to update
+     * @param scores the score of each member, at the same index as in {@code ids}
+     * @return a future completed once the updates have been applied
+     */
+    public CompletableFuture<Void> update(String[] ids, double[] scores) {
+        return update(ids, scores, null);
+    }
+
+    /**
+     * Updates the scores of the given members.
+     *
+     * @param ids the members to update
+     * @param scores the score of each member, at the same index as in {@code ids}
+     * @param updatePolicy the update policy to use, or {@code null} for the leaderboard default
+     * @return a future completed once the updates have been applied
+     * @throws IllegalArgumentException if the arrays differ in length
+     */
+    public CompletableFuture<Void> update(String[] ids, double[] scores, UpdatePolicy updatePolicy) {
+        if (ids.length != scores.length) {
+            throw new IllegalArgumentException("ids and scores must have the same length");
+        }
+        if (ids.length == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return updateScores(ids, i -> scores[i], updatePolicy);
+    }
+
+    /**
+     * Returns the entries between the given 1-based ranks as a primitive page.
+     *
+     * @param lower the rank of the first entry
+     * @param upper the rank of the last entry
+     * @return the page of entries
+     */
+    public CompletableFuture<DoubleEntryPage> listPage(long lower, long upper) {
+        return list(lower, upper, (results, firstRank) -> DoubleEntryPage.decode(results, firstRank, memberCodec()));
+    }
+
+    public CompletableFuture<DoubleEntryPage> topPage(int max) {
+        return listPage(1, max);
+    }
+
+    @Override
+    public CompletableFuture<List<Entry<Double>>> list(long lower, long upper) {
+        return listPage(lower, upper).thenApply(EntryPage::asEntries);
+    }
+
+    /**
+     * Creates an iterator reading the whole leaderboard page by page.
+     *
+     * @param batchSize the number of entries per page
+     * @return an iterator over the pages, in rank order
+     */
+    public Iterator<DoubleEntryPage> exportPages(int batchSize) {
+        return exportPages(batchSize, ExportStream.DEFAULT_READ_AHEAD);
+    }
+
+    /**
+     * Creates an iterator reading the whole leaderboard page by page, keeping {@code readAhead}
+     * pages in flight beyond the one being consumed.
+     *
+     * @param batchSize the number of entries per page
+     * @param readAhead the number of pages fetched ahead of the consumer (0 to fetch on demand)
+     * @return an iterator over the pages, in rank order
+     */
+    public Iterator<DoubleEntryPage> exportPages(int batchSize, int readAhead) {
+        return new PageIterator<>((firstRank, size, count) -> listPages(firstRank, size, count,
+                (results, rank) -> DoubleEntryPage.decode(results, rank, memberCodec())), EntryPage::size, batchSize, readAhead);
+    }
+}
@@ -0,0 +1,105 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A page of consecutively ranked leaderboard entries stored in parallel arrays.
+ * <p>
+ * Pages keep member identifiers in a {@code String[]} and scores in a primitive array of the
+ * subclass, so reading a range allocates a fixed number of arrays instead of one {@link Entry}
+ * and one boxed score per member. Ranks are not stored: the entry at index {@code i} has rank
+ * {@code firstRank() + i}.
+ * </p>
+ *
+ * @param <T> the boxed score type exposed by the {@link Entry} view
+ *
+ * @see LongEntryPage for {@code long} scores
+ * @see DoubleEntryPage for {@code double} scores
+ */
+public abstract class EntryPage<T extends Number> {
+
+    final String[] ids;
+    final long firstRank;
+
+    EntryPage(String[] ids, long firstRank) {
+        this.ids = ids;
+        this.firstRank = firstRank;
+    }
+
+    /**
+     * Returns the number of entries in this page.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean isEmpty() {
+        return ids.length == 0;
+    }
+
+    /**
+     * Returns the rank of the first entry of this page.
+     *
+     * @return the 1-based rank of the entry at index 0
+     */
+    public long firstRank() {
+        return firstRank;
+    }
+
+    public String id(int index) {
+        return ids[index];
+    }
+
+    public long rank(int index) {
+        if (index < 0 || index >= ids.length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return firstRank + index;
+    }
+
+    /**
+     * Returns the member identifiers of this page.
+     *
+     * @return the backing array of identifiers, which must not be modified
+     */
+    public String[] ids() {
+        return ids;
+    }
+
+    /**
+     * Returns the score at the given index as a boxed value.
+     *
+     * @param index the index of the entry
+     * @return the boxed score
+     */
+    public abstract T boxedScore(int index);
+
+    /**
+     * Returns an unmodifiable view of this page as entries.
+     * <p>
+     * The view does not copy the page; each {@link Entry} is created on access.
+     * </p>
+     *
+     * @return a list view of the entries
+     */
+    public List<Entry<T>> asEntries() {
+        return new EntryView();
+    }
+
+    private final class EntryView extends AbstractList<Entry<T>> implements RandomAccess {
+
+        @Override
+        public Entry<T> get(int index) {
+            return new Entry<>(ids[index], boxedScore(index), firstRank + index);
+        }
+
+        @Override
+        public int size() {
+            return ids.length;
+        }
+    }
+}
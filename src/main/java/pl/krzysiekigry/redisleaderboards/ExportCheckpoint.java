@@ -0,0 +1,151 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * The position of an export after its last returned batch, from which another process can resume.
+ * <p>
+ * A checkpoint records the exported key, which is the temporary key for exports of a
+ * {@link LeaderboardSnapshot}, the next rank and the score and member of the last exported entry.
+ * Resuming seeks the last entry by score and member, so an export of a live leaderboard continues
+ * right after it even if entries were added or removed above it in the meantime. On a snapshot
+ * both positions are always the same.
+ * </p>
+ * <p>
+ * Checkpoints are saved as URL-safe string tokens with {@link #toToken()} and read back with
+ * {@link #parse(String)}.
+ * </p>
+ *
+ * @see ExportStream#checkpoint() for taking checkpoints
+ * @see Leaderboard#resumeExport(ExportCheckpoint, int) for resuming exports
+ */
+public final class ExportCheckpoint {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private final byte[] key;
+    private final long nextRank;
+    private final double lastScore;
+    private final byte[] lastMember;
+
+    ExportCheckpoint(byte[] key, long nextRank, double lastScore, byte[] lastMember) {
+        this.key = key;
+        this.nextRank = nextRank;
+        this.lastScore = lastScore;
+        this.lastMember = lastMember;
+    }
+
+    /**
+     * Reads a checkpoint from a token created by {@link #toToken()}.
+     *
+     * @param token the checkpoint token
+     * @return the checkpoint
+     * @throws IllegalArgumentException if the token is malformed or of an unsupported version
+     */
+    public static ExportCheckpoint parse(String token) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(token));
+            byte version = buffer.get();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported checkpoint version " + version);
+            }
+            byte[] key = readBytes(buffer);
+            long nextRank = buffer.getLong();
+            double lastScore = buffer.getDouble();
+            byte[] lastMember = buffer.get() != 0 ? readBytes(buffer) : null;
+            if (buffer.hasRemaining() || nextRank < 1) {
+                throw new IllegalArgumentException("Malformed checkpoint token");
+            }
+            return new ExportCheckpoint(key, nextRank, lastScore, lastMember);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Malformed checkpoint token", e);
+        }
+    }
+
+    /**
+     * Serializes this checkpoint into a URL-safe string.
+     *
+     * @return the checkpoint token
+     */
+    public String toToken() {
+        int memberLength = lastMember != null ? Integer.BYTES + lastMember.length : 0;
+        ByteBuffer buffer = ByteBuffer.allocate(1 + Integer.BYTES + key.length + Long.BYTES + Double.BYTES + 1 + memberLength);
+        buffer.put(FORMAT_VERSION);
+        buffer.putInt(key.length).put(key);
+        buffer.putLong(nextRank);
+        buffer.putDouble(lastScore);
+        buffer.put((byte) (lastMember != null ? 1 : 0));
+        if (lastMember != null) {
+            buffer.putInt(lastMember.length).put(lastMember);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Malformed checkpoint token");
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Returns the key of the exported sorted set.
+     *
+     * @return a copy of the key bytes
+     */
+    public byte[] key() {
+        return key.clone();
+    }
+
+    /**
+     * Returns the 1-based rank of the next entry at the time of the checkpoint.
+     *
+     * @return the next rank
+     */
+    public long nextRank() {
+        return nextRank;
+    }
+
+    /**
+     * Returns whether the export had not returned any entry yet.
+     *
+     * @return {@code true} if resuming starts from the first rank
+     */
+    public boolean isStart() {
+        return lastMember == null;
+    }
+
+    double lastScore() {
+        return lastScore;
+    }
+
+    byte[] lastMember() {
+        return lastMember;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ExportCheckpoint other
+                && nextRank == other.nextRank
+                && Double.compare(lastScore, other.lastScore) == 0
+                && Arrays.equals(key, other.key)
+                && Arrays.equals(lastMember, other.lastMember);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(Arrays.hashCode(key), nextRank, lastScore, Arrays.hashCode(lastMember));
+    }
+
+    @Override
+    public String toString() {
+        return "ExportCheckpoint[nextRank=" + nextRank + ", lastScore=" + lastScore + "]";
+    }
+}
@@ -15,6 +15,11 @@ import java.util.NoSuchElementException;
  * The iterator maintains an internal state to track the current position and automatically
  * handles the end-of-data condition when all entries have been retrieved.
  * </p>
+ * <p>
+ * While the caller consumes one batch, the following batches are already being fetched. All
+ * batches missing from the read-ahead window are requested in a single pipeline, so exporting a
+ * large leaderboard is bound by Redis throughput rather than by one round trip per batch.
+ * </p>
  * 
  * @param <T> the numeric type of the leaderboard scores
  * 
@@ -23,31 +28,82 @@ import java.util.NoSuchElementException;
  */
 public class ExportStream<T extends Number> implements Iterator<List<Entry<T>>> {
 
-    private final Leaderboard<T> leaderboard;
-    private final int batchSize;
+    /**
+     * The number of pages fetched ahead of the consumer when none is given.
+     */
+    public static final int DEFAULT_READ_AHEAD = 2;
+
+    /**
+     * A batch together with the score and member of its last entry exactly as Redis returned them,
+     * before the score is converted to {@code T}.
+     */
+    record Batch<T extends Number>(List<Entry<T>> entries, double lastScore, byte[] lastMember) {
+    }
 
-    private long currentIndex = 1;
-    private boolean done = false;
+    private final Leaderboard<T> leaderboard;
+    private final PageIterator<Batch<T>> pages;
+    private long nextRank;
+    private double lastScore;
+    private byte[] lastMember;
 
     /**
-     * Creates a new ExportStream for the specified leaderboard with the given batch size.
+     * Creates a new ExportStream for the specified leaderboard with the given batch size,
+     * reading {@link #DEFAULT_READ_AHEAD} pages ahead.
      * 
      * @param leaderboard the leaderboard to stream entries from
      * @param batchSize the number of entries to fetch in each batch
      */
     public ExportStream(Leaderboard<T> leaderboard, int batchSize) {
+        this(leaderboard, batchSize, DEFAULT_READ_AHEAD);
+    }
+
+    /**
+     * Creates a new ExportStream that keeps the given number of batches in flight ahead of the consumer.
+     *
+     * @param leaderboard the leaderboard to stream entries from
+     * @param batchSize the number of entries to fetch in each batch
+     * @param readAhead the number of batches fetched ahead of the consumer (0 to fetch on demand)
+     */
+    public ExportStream(Leaderboard<T> leaderboard, int batchSize, int readAhead) {
+        this(leaderboard, batchSize, readAhead, 1, null);
+    }
+
+    ExportStream(Leaderboard<T> leaderboard, int batchSize, int readAhead, long firstRank, ExportCheckpoint resumedFrom) {
         this.leaderboard = leaderboard;
-        this.batchSize = batchSize;
+        this.pages = leaderboard.exportBatches(batchSize, readAhead, firstRank);
+        this.nextRank = firstRank;
+        if (resumedFrom != null) {
+            this.lastScore = resumedFrom.lastScore();
+            this.lastMember = resumedFrom.lastMember();
+        }
+    }
+
+    /**
+     * Returns the position after the last batch returned by {@link #next()}.
+     * <p>
+     * The checkpoint can be saved with {@link ExportCheckpoint#toToken()} and passed to
+     * {@link Leaderboard#resumeExport(ExportCheckpoint, int)}, possibly in another process,
+     * to continue the export with the following entry.
+     * </p>
+     *
+     * @return the current checkpoint
+     */
+    public ExportCheckpoint checkpoint() {
+        return new ExportCheckpoint(leaderboard.keyBytes(), nextRank, lastScore, lastMember);
     }
 
     /**
      * Returns {@code true} if there are more batches of entries to retrieve.
+     * <p>
+     * This waits for the next batch if it has not arrived yet.
+     * </p>
      * 
      * @return {@code true} if more entries are available, {@code false} otherwise
+     * @throws RuntimeException if an error occurs while fetching entries
      */
     @Override
     public boolean hasNext() {
-        return !done;
+        return pages.hasNext();
     }
 
     /**
@@ -64,22 +120,12 @@ public class ExportStream<T extends Number> implements Iterator<List<Entry<T>>>
      */
     @Override
     public List<Entry<T>> next() {
-        if (done) {
-            throw new NoSuchElementException();
-        }
-
-        try {
-            List<Entry<T>> entries = leaderboard.list(currentIndex, currentIndex + batchSize - 1).get();
-            if (entries.size() < batchSize) {
-                done = true;
-                if (entries.isEmpty()) {
-                    throw new NoSuchElementException();
-                }
-            }
-            currentIndex += batchSize;
-            return entries;
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        Batch<T> batch = pages.next();
+        List<Entry<T>> entries = batch.entries();
+        nextRank = entries.get(entries.size() - 1).rank() + 1;
+        // The converted score of an integer leaderboard may be rounded, which would seek the wrong entry
+        lastScore = batch.lastScore();
+        lastMember = batch.lastMember();
+        return entries;
     }
 }
@@ -0,0 +1,121 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers the entries of an export to one {@link Flow.Subscriber}, honoring its demand.
+ * <p>
+ * A page is requested only when the current page has been delivered and the subscriber still
+ * has outstanding demand. All signals are emitted from a serialized drain loop, which runs on
+ * the thread calling {@link #request(long)} or on the thread completing a page.
+ * </p>
+ *
+ * @param <T> the numeric type of the leaderboard scores
+ */
+final class ExportSubscription<T extends Number> implements Flow.Subscription {
+
+    private final Flow.Subscriber<? super Entry<T>> subscriber;
+    private final PageIterator<List<Entry<T>>> pages;
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private volatile boolean cancelled;
+    private volatile Throwable error;
+    private volatile boolean completed;
+    private volatile List<Entry<T>> fetched;
+
+    // Only accessed from the drain loop
+    private List<Entry<T>> page;
+    private int index;
+    private boolean fetching;
+
+    ExportSubscription(Flow.Subscriber<? super Entry<T>> subscriber, PageIterator<List<Entry<T>>> pages) {
+        this.subscriber = subscriber;
+        this.pages = pages;
+    }
+
+    void start() {
+        subscriber.onSubscribe(this);
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            error = new IllegalArgumentException("Requested " + n + " entries, the demand must be positive");
+        } else {
+            requested.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+        }
+        drain();
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (true) {
+                if (cancelled) {
+                    return;
+                }
+                if (page != null && index < page.size() && error == null) {
+                    long demand = requested.get();
+                    if (demand == 0) {
+                        break;
+                    }
+                    subscriber.onNext(page.get(index++));
+                    if (demand != Long.MAX_VALUE) {
+                        requested.decrementAndGet();
+                    }
+                    continue;
+                }
+                page = null;
+
+                Throwable failure = error;
+                if (failure != null) {
+                    cancelled = true;
+                    subscriber.onError(failure);
+                    return;
+                }
+                if (fetched != null) {
+                    page = fetched;
+                    fetched = null;
+                    index = 0;
+                    fetching = false;
+                    continue;
+                }
+                if (completed) {
+                    cancelled = true;
+                    subscriber.onComplete();
+                    return;
+                }
+                if (!fetching && requested.get() > 0) {
+                    fetching = true;
+                    pages.nextAsync().whenComplete(this::onPage);
+                }
+                break;
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void onPage(List<Entry<T>> result, Throwable failure) {
+        if (failure != null) {
+            error = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        } else if (result == null) {
+            completed = true;
+        } else {
+            fetched = result;
+        }
+        drain();
+    }
+}
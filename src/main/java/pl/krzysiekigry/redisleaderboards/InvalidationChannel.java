@@ -0,0 +1,304 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Delivers change notifications for leaderboard keys pushed by Redis keyspace notifications.
+ * <p>
+ * The channel keeps one dedicated subscriber connection and subscribes only to the keys that
+ * have registered listeners, so in-process caches of leaderboard reads can drop their data when
+ * the underlying sorted set actually changes instead of polling Redis. Listeners run on the
+ * subscriber thread and must not block.
+ * </p>
+ * <p>
+ * Keyspace notifications for generic, sorted set, expired and evicted events ({@code Kgzxe}) must be
+ * enabled on the server. On every connect the channel reads {@code notify-keyspace-events} with
+ * {@code CONFIG GET}; if flags are missing, it logs a warning and reports every registration as
+ * inactive, so near-caches keep polling. Only when created with {@code configureServer} does it
+ * add the missing flags with {@code CONFIG SET}, which changes a server-wide setting and is often
+ * refused by managed Redis services. Notifications are not delivered while the subscriber is
+ * disconnected, so after every (re)connect all listeners are invoked once.
+ * Whether notifications for a key are currently delivered is reported by {@link Registration#isActive()}.
+ * </p>
+ * <p>
+ * The subscriber connection is never reused for other commands: when the subscription ends it is
+ * discarded, also when it was borrowed from a pool.
+ * </p>
+ *
+ * @see RedisExtension#enableInvalidation(boolean) for creating the channel
+ * @see NearCacheOptions for the near-cache that listens to this channel
+ */
+public class InvalidationChannel implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(InvalidationChannel.class);
+
+    private static final String CONTROL_PATTERN = "__redis-leaderboards__:invalidation";
+    private static final String NOTIFY_KEYSPACE_EVENTS = "notify-keyspace-events";
+    private static final String REQUIRED_FLAGS = "Kgzxe";
+    private static final long RECONNECT_DELAY_MS = 1000;
+
+    /**
+     * A listener registration, which stops the delivery of notifications when closed.
+     */
+    public interface Registration extends AutoCloseable {
+
+        /**
+         * Returns whether changes of the key are currently delivered: the server has notifications
+         * enabled and acknowledged the subscription for the key, and the subscriber is connected.
+         * Changes made while this is {@code false} may be missed.
+         *
+         * @return {@code true} if notifications for the key are delivered
+         */
+        boolean isActive();
+
+        @Override
+        void close();
+    }
+
+    private final Supplier<Jedis> connectionFactory;
+    private final boolean configureServer;
+    private final Consumer<InvalidationChannel> onClose;
+    private final Map<String, Set<Runnable>> listeners = new ConcurrentHashMap<>();
+    private final Set<String> confirmedPatterns = ConcurrentHashMap.newKeySet();
+    private final Thread thread;
+    private JedisPubSub active;
+    private volatile boolean notificationsEnabled;
+    private volatile boolean closed;
+
+    InvalidationChannel(Supplier<Jedis> connectionFactory, boolean configureServer, Consumer<InvalidationChannel> onClose) {
+        this.connectionFactory = connectionFactory;
+        this.configureServer = configureServer;
+        this.onClose = onClose;
+        this.thread = new Thread(this::run, "redis-leaderboards-invalidation");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Registers a listener that is invoked whenever the given key changes, expires or is deleted.
+     *
+     * @param key the Redis key to watch
+     * @param listener the callback to run on changes
+     * @return the registration, which must be closed to stop watching the key
+     */
+    public Registration register(String key, Runnable listener) {
+        synchronized (this) {
+            Set<Runnable> keyListeners = listeners.get(key);
+            if (keyListeners == null) {
+                keyListeners = new CopyOnWriteArraySet<>();
+                listeners.put(key, keyListeners);
+                if (active != null) {
+                    active.psubscribe(pattern(key));
+                }
+            }
+            keyListeners.add(listener);
+        }
+        String pattern = pattern(key);
+        return new Registration() {
+            @Override
+            public boolean isActive() {
+                return notificationsEnabled && !closed && confirmedPatterns.contains(pattern);
+            }
+
+            @Override
+            public void close() {
+                unregister(key, listener);
+            }
+        };
+    }
+
+    private synchronized void unregister(String key, Runnable listener) {
+        Set<Runnable> keyListeners = listeners.get(key);
+        if (keyListeners != null && keyListeners.remove(listener) && keyListeners.isEmpty()) {
+            listeners.remove(key);
+            confirmedPatterns.remove(pattern(key));
+            if (active != null) {
+                active.punsubscribe(pattern(key));
+            }
+        }
+    }
+
+    /**
+     * Stops the subscriber thread and releases its connection.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (this) {
+            if (active != null) {
+                active.punsubscribe();
+            }
+        }
+        thread.interrupt();
+        onClose.accept(this);
+    }
+
+    private void run() {
+        while (!closed) {
+            Jedis jedis = null;
+            try {
+                jedis = connectionFactory.get();
+                // Checked on every connect, as a restarted server may have lost the flags
+                notificationsEnabled = checkNotifications(jedis);
+                jedis.psubscribe(new Subscriber(), CONTROL_PATTERN);
+            } catch (RuntimeException e) {
+                if (!closed) {
+                    log.warn("Invalidation subscriber disconnected, reconnecting in {}ms", RECONNECT_DELAY_MS, e);
+                }
+            } finally {
+                synchronized (this) {
+                    active = null;
+                    confirmedPatterns.clear();
+                }
+                if (jedis != null) {
+                    discard(jedis);
+                }
+            }
+
+            if (!closed) {
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes the subscriber connection without returning it to a pool, as it may still hold unread pub/sub replies.
+     */
+    private static void discard(Jedis jedis) {
+        try {
+            jedis.getConnection().setBroken();
+            jedis.close();
+        } catch (RuntimeException e) {
+            log.debug("Failed to close invalidation subscriber connection", e);
+        }
+    }
+
+    /**
+     * Checks the keyspace notification flags of the server, enabling the missing ones if the
+     * channel is allowed to configure the server.
+     *
+     * @return whether the server has all required flags enabled
+     */
+    private boolean checkNotifications(Jedis jedis) {
+        try {
+            String flags = jedis.configGet(NOTIFY_KEYSPACE_EVENTS).getOrDefault(NOTIFY_KEYSPACE_EVENTS, "");
+            StringBuilder missing = new StringBuilder();
+            for (char flag : REQUIRED_FLAGS.toCharArray()) {
+                boolean coveredByAll = flag != 'K' && flags.indexOf('A') >= 0;
+                if (flags.indexOf(flag) < 0 && !coveredByAll) {
+                    missing.append(flag);
+                }
+            }
+            if (missing.length() == 0) {
+                return true;
+            }
+            if (!configureServer) {
+                log.warn("Keyspace notification flags {} are not enabled, caches keep polling until notify-keyspace-events includes {}",
+                        missing, REQUIRED_FLAGS);
+                return false;
+            }
+            jedis.configSet(NOTIFY_KEYSPACE_EVENTS, flags + missing);
+            log.info("Enabled keyspace notification flags {}", missing);
+            return true;
+        } catch (JedisException e) {
+            log.warn("Could not check keyspace notifications, make sure notify-keyspace-events includes {}", REQUIRED_FLAGS, e);
+            return false;
+        }
+    }
+
+    private void notifyListeners(String key) {
+        Set<Runnable> keyListeners = listeners.get(key);
+        if (keyListeners != null) {
+            keyListeners.forEach(this::runQuietly);
+        }
+    }
+
+    private void runQuietly(Runnable listener) {
+        try {
+            listener.run();
+        } catch (RuntimeException e) {
+            log.warn("Invalidation listener failed", e);
+        }
+    }
+
+    /**
+     * Builds a pattern matching the keyspace channel of the key in any database.
+     */
+    private static String pattern(String key) {
+        StringBuilder pattern = new StringBuilder("__keyspace@*__:");
+        for (char c : key.toCharArray()) {
+            if (c == '*' || c == '?' || c == '[' || c == ']' || c == '\\') {
+                pattern.append('\\');
+            }
+            pattern.append(c);
+        }
+        return pattern.toString();
+    }
+
+    private class Subscriber extends JedisPubSub {
+
+        @Override
+        public void onPSubscribe(String pattern, int subscribedChannels) {
+            if (!CONTROL_PATTERN.equals(pattern)) {
+                confirmKey(pattern);
+                return;
+            }
+            synchronized (InvalidationChannel.this) {
+                if (closed) {
+                    punsubscribe();
+                    return;
+                }
+                active = this;
+                if (!listeners.isEmpty()) {
+                    psubscribe(listeners.keySet().stream().map(InvalidationChannel::pattern).toArray(String[]::new));
+                }
+            }
+            // Changes made while disconnected were not delivered
+            listeners.values().forEach(keyListeners -> keyListeners.forEach(InvalidationChannel.this::runQuietly));
+        }
+
+        @Override
+        public void onPUnsubscribe(String pattern, int subscribedChannels) {
+            confirmedPatterns.remove(pattern);
+        }
+
+        /**
+         * Marks the subscription of a key as active; changes before the acknowledgement were not delivered.
+         */
+        private void confirmKey(String pattern) {
+            String key;
+            synchronized (InvalidationChannel.this) {
+                key = listeners.keySet().stream().filter(candidate -> pattern(candidate).equals(pattern)).findFirst().orElse(null);
+                if (key == null) {
+                    return;
+                }
+                confirmedPatterns.add(pattern);
+            }
+            notifyListeners(key);
+        }
+
+        @Override
+        public void onPMessage(String pattern, String channel, String message) {
+            int separator = channel.indexOf("__:");
+            if (separator >= 0) {
+                notifyListeners(channel.substring(separator + 3));
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link RedisTransport} backed by a {@link JedisPool}.
+ * <p>
+ * Every call borrows a connection from the pool and performs the blocking round trip on the
+ * configured {@link Executor}, so the number of in-flight calls is bounded by both the pool
+ * size and the number of threads the executor is willing to park.
+ * </p>
+ *
+ * @see NioTransport for a non-blocking alternative
+ */
+public class JedisTransport implements RedisTransport {
+
+    private final JedisPool jedisPool;
+    private final Executor executor;
+
+    /**
+     * Creates a new transport running blocking Jedis calls on the given executor.
+     *
+     * @param jedisPool the Jedis connection pool to borrow connections from
+     * @param executor the executor running the blocking calls
+     */
+    public JedisTransport(JedisPool jedisPool, Executor executor) {
+        this.jedisPool = jedisPool;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Object> execute(RedisCommand command) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (Jedis jedis = jedisPool.getResource()) {
+                return jedis.sendCommand(command.command(), command.args());
+            }
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<List<Object>> pipeline(List<RedisCommand> commands) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (Jedis jedis = jedisPool.getResource()) {
+                Pipeline pipeline = jedis.pipelined();
+                for (RedisCommand command : commands) {
+                    pipeline.sendCommand(command.command(), command.args());
+                }
+                return pipeline.syncAndReturnAll();
+            }
+        }, executor);
+    }
+
+    /**
+     * Does nothing; the Jedis pool is owned by the caller that created it.
+     */
+    @Override
+    public void close() {
+    }
+}
@@ -2,16 +2,37 @@ package pl.krzysiekigry.redisleaderboards;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import redis.clients.jedis.Jedis;
 import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Protocol.Command;
+import redis.clients.jedis.Protocol.Keyword;
 import redis.clients.jedis.exceptions.JedisConnectionException;
-import redis.clients.jedis.resps.Tuple;
+import redis.clients.jedis.util.SafeEncoder;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.DoubleFunction;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A Redis-based leaderboard implementation supporting various scoring and ranking operations.
@@ -21,14 +42,19 @@ import java.util.stream.Collectors;
  * synchronous and asynchronous operations for managing leaderboard entries.
  * </p>
  * <p>
+ * All commands go through the {@link RedisTransport} of the {@link RedisExtension}, so the
+ * returned futures are as non-blocking as the configured transport.
+ * </p>
+ * <p>
  * Key features include:
  * <ul>
  *   <li>Flexible scoring with generic numeric types</li>
  *   <li>Configurable sorting policies (high-to-low, low-to-high)</li>
  *   <li>Multiple update strategies (replace, aggregate, best)</li>
  *   <li>Batch operations for efficient bulk updates</li>
- *   <li>Ranking and position queries</li>
+ *   <li>Ranking and position queries, including bulk lookups in one round trip</li>
  *   <li>Range-based entry retrieval</li>
+ *   <li>Optional in-process near-cache for the top entries</li>
  *   <li>Export streaming for large datasets</li>
  * </ul>
  * 
@@ -42,11 +68,31 @@ import java.util.stream.Collectors;
 public class Leaderboard<T extends Number> {
 
     private static final Logger log = LoggerFactory.getLogger(Leaderboard.class);
+    static final String SNAPSHOT_INFIX = ":snapshot:";
 
     private final RedisExtension redisExtension;
     private final String key;
+    private final byte[] keyBytes;
     private final Class<T> clazz;
     private final LeaderboardOptions options;
+    private final UpdateCoalescer<T> coalescer;
+    private final NearCache<T> nearCache;
+    private final DoubleFunction<T> scoreConverter;
+    private final MemberCodec memberCodec;
+
+    /**
+     * The cycle of its periodic leaderboard this leaderboard holds; {@code null} for standalone leaderboards.
+     */
+    private volatile CycleRegistration cycleRegistration;
+
+    /**
+     * Commands tying a leaderboard to its cycle: {@code onWrite} (registry entry and expiry) run
+     * atomically with every write, {@code onClear} with {@link #clear()}.
+     *
+     * @param start the cycle start the commands were built for, as stored in the registry
+     */
+    record CycleRegistration(long start, List<RedisCommand> onWrite, RedisCommand onClear) {
+    }
 
     /**
      * Creates a new leaderboard instance with the specified configuration.
@@ -57,49 +103,174 @@ public class Leaderboard<T extends Number> {
      * @param options the configuration options for this leaderboard
      */
     public Leaderboard(RedisExtension redisExtension, String key, Class<T> clazz, LeaderboardOptions options) {
+        this(redisExtension, key, SafeEncoder.encode(key), clazz, options);
+    }
+
+    /**
+     * Creates a new leaderboard stored under a binary key.
+     *
+     * @param redisExtension the Redis connection and script management extension
+     * @param key the raw Redis key to use for storing leaderboard data
+     * @param clazz the class type for score values
+     * @param options the configuration options for this leaderboard
+     */
+    public Leaderboard(RedisExtension redisExtension, byte[] key, Class<T> clazz, LeaderboardOptions options) {
+        this(redisExtension, SafeEncoder.encode(key), key.clone(), clazz, options);
+    }
+
+    private Leaderboard(RedisExtension redisExtension, String key, byte[] keyBytes, Class<T> clazz, LeaderboardOptions options) {
         this.redisExtension = redisExtension;
         this.key = key;
+        this.keyBytes = keyBytes;
         this.clazz = clazz;
         this.options = options;
+        this.scoreConverter = scoreConverter(clazz);
+        this.memberCodec = options.memberCodec() != null ? options.memberCodec() : MemberCodec.UTF8;
+        this.coalescer = options.coalescing() != null ?
+                new UpdateCoalescer<>(this::updateBatch, options.coalescing(), redisExtension.getScheduler()) :
+                null;
+        this.nearCache = options.nearCache() != null ?
+                new NearCache<>(() -> list(1, options.nearCache().size()), key, options.nearCache(), redisExtension) :
+                null;
     }
 
     public CompletableFuture<Long> rank(String id) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Jedis jedis = redisExtension.getJedis()) {
-                Long rank = options.sortPolicy() == SortPolicy.HIGH_TO_LOW ?
-                        jedis.zrevrank(key, id) :
-                        jedis.zrank(key, id);
-                return rank != null ? rank + 1 : null;
+        return transport().execute(rankCommand(memberCodec.encode(id)))
+                .thenApply(rank -> rank != null ? (Long) rank + 1 : null);
+    }
+
+    public CompletableFuture<Long> rank(byte[] id) {
+        return transport().execute(rankCommand(id))
+                .thenApply(rank -> rank != null ? (Long) rank + 1 : null);
+    }
+
+    /**
+     * Returns the 1-based ranks of the given members, fetched in a single pipelined round trip.
+     *
+     * @param ids the members to look up
+     * @return the ranks in the order of {@code ids}, with {@code null} for members not on the leaderboard
+     */
+    public CompletableFuture<List<Long>> rankMany(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        List<RedisCommand> commands = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            commands.add(rankCommand(memberCodec.encode(id)));
+        }
+        return transport().pipeline(commands).thenApply(results -> {
+            List<Long> ranks = new ArrayList<>(results.size());
+            for (Object rank : results) {
+                ranks.add(rank != null ? (Long) rank + 1 : null);
             }
+            return ranks;
         });
     }
 
     public Entry<T> find(String id) {
-        try (Jedis jedis = redisExtension.getJedis()) {
-            Double score = jedis.zscore(key, id);
-            if (score == null) {
-                return null;
-            }
+        return findMany(Collections.singletonList(id)).join().get(0);
+    }
 
-            Long rank = options.sortPolicy() == SortPolicy.HIGH_TO_LOW ?
-                    jedis.zrevrank(key, id) :
-                    jedis.zrank(key, id);
-            if (rank == null) {
-                return null;
-            }
+    /**
+     * Returns the entry of the given binary member in a single round trip.
+     *
+     * @param id the raw member identifier
+     * @return the entry, or {@code null} if the member is not on the leaderboard
+     */
+    public BinaryEntry<T> find(byte[] id) {
+        List<Object> results = ReplyDecoder.asList(transport().execute(new RedisCommand(Command.EVALSHA,
+                SafeEncoder.encode(redisExtension.getScriptSha("zfind")), Protocol.toByteArray(1), keyBytes,
+                SafeEncoder.encode(options.sortPolicy().getValue()), id)).join());
+        Object score = results.get(0);
+        Object rank = results.get(1);
+        return score != null && rank != null ? new BinaryEntry<>(id, getT(parseScore(score)), (Long) rank + 1) : null;
+    }
 
-            return new Entry<>(id, getT(new Tuple(id, score)), rank + 1);
+    /**
+     * Returns the entries of the given members.
+     * <p>
+     * Scores and ranks of all members are read by one {@code zfind} script call, so the whole
+     * lookup costs a single round trip and sees a consistent state of the leaderboard.
+     * </p>
+     *
+     * @param ids the members to look up
+     * @return the entries in the order of {@code ids}, with {@code null} for members not on the leaderboard
+     */
+    public CompletableFuture<List<Entry<T>>> findMany(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        byte[][] args = new byte[ids.size() + 4][];
+        args[0] = SafeEncoder.encode(redisExtension.getScriptSha("zfind"));
+        args[1] = Protocol.toByteArray(1);
+        args[2] = keyBytes;
+        args[3] = SafeEncoder.encode(options.sortPolicy().getValue());
+        int i = 4;
+        for (String id : ids) {
+            args[i++] = memberCodec.encode(id);
         }
+
+        List<String> members = new ArrayList<>(ids);
+        return transport().execute(new RedisCommand(Command.EVALSHA, args)).thenApply(result -> {
+            List<Object> results = ReplyDecoder.asList(result);
+            List<Entry<T>> entries = new ArrayList<>(members.size());
+            for (int j = 0; j < members.size(); j++) {
+                Object score = results.get(2 * j);
+                Object rank = results.get(2 * j + 1);
+                entries.add(score != null && rank != null ?
+                        new Entry<>(members.get(j), getT(parseScore(score)), (Long) rank + 1) :
+                        null);
+            }
+            return entries;
+        });
     }
 
     public CompletableFuture<Entry<T>> at(long rank) {
         if (rank <= 0) {
             return CompletableFuture.completedFuture(null);
         }
+        if (nearCache != null && rank <= nearCache.size()) {
+            return nearCache.entries().thenApply(entries -> rank <= entries.size() ? entries.get((int) rank - 1) : null);
+        }
         return list(rank, rank).thenApply(list -> list.isEmpty() ? null : list.get(0));
     }
 
+    /**
+     * Returns the entries at the given 1-based ranks, fetched in a single pipelined round trip.
+     *
+     * @param ranks the ranks to look up
+     * @return the entries in the order of {@code ranks}, with {@code null} for ranks outside the leaderboard
+     */
+    public CompletableFuture<List<Entry<T>>> atMany(long... ranks) {
+        List<RedisCommand> commands = new ArrayList<>(ranks.length);
+        for (long rank : ranks) {
+            if (rank > 0) {
+                commands.add(rangeCommand(rank - 1, rank - 1));
+            }
+        }
+        if (commands.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.nCopies(ranks.length, null));
+        }
+
+        return transport().pipeline(commands).thenApply(results -> {
+            List<Entry<T>> entries = new ArrayList<>(ranks.length);
+            int resultIndex = 0;
+            for (long rank : ranks) {
+                if (rank <= 0) {
+                    entries.add(null);
+                    continue;
+                }
+                List<Entry<T>> range = toEntries(ReplyDecoder.asList(results.get(resultIndex++)), rank);
+                entries.add(range.isEmpty() ? null : range.get(0));
+            }
+            return entries;
+        });
+    }
+
     public CompletableFuture<T> updateOne(String id, T value, UpdatePolicy updatePolicy) {
+        if (coalescer != null) {
+            return coalescer.submit(new EntryUpdateQuery<>(id, value), updatePolicy);
+        }
         return update(Collections.singletonList(new EntryUpdateQuery<T>(id, value)), updatePolicy)
                 .thenApply(results -> results.get(0));
     }
@@ -108,251 +279,767 @@ public class Leaderboard<T extends Number> {
         return updateOne(id, value, null);
     }
 
+    /**
+     * Updates the score of a binary member. Binary updates bypass write coalescing.
+     *
+     * @param id the raw member identifier
+     * @param value the value to apply
+     * @param updatePolicy the update policy to use, or {@code null} for the leaderboard default
+     * @return a future with the result of the update, as for {@link #updateOne(String, Number, UpdatePolicy)}
+     */
+    public CompletableFuture<T> updateOne(byte[] id, T value, UpdatePolicy updatePolicy) {
+        return updateBinary(Collections.singletonList(new BinaryEntryUpdateQuery<>(id, value)), updatePolicy)
+                .thenApply(results -> results.get(0));
+    }
+
+    public CompletableFuture<T> updateOne(byte[] id, T value) {
+        return updateOne(id, value, null);
+    }
+
+    /**
+     * Updates the scores of binary members in one pipeline.
+     *
+     * @param entries the updates to apply
+     * @param updatePolicy the update policy to use, or {@code null} for the leaderboard default
+     * @return a future with the result of each update, in the order of {@code entries}
+     */
+    public CompletableFuture<List<T>> updateBinary(List<BinaryEntryUpdateQuery<T>> entries, UpdatePolicy updatePolicy) {
+        byte[][] members = new byte[entries.size()][];
+        double[] scores = new double[entries.size()];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = entries.get(i).id();
+            scores[i] = entries.get(i).value().doubleValue();
+        }
+        return updateMembers(members, scores, Collections.nCopies(members.length, updatePolicy));
+    }
+
     public CompletableFuture<List<T>> update(List<EntryUpdateQuery<T>> entries) {
         return update(entries, null);
     }
 
     public CompletableFuture<List<T>> update(List<EntryUpdateQuery<T>> entries, UpdatePolicy updatePolicy) {
-        return CompletableFuture.supplyAsync(() -> executeWithRetry(() -> updateInternal(entries, updatePolicy), 3));
+        return updateBatch(entries, Collections.nCopies(entries.size(), updatePolicy));
     }
 
-    private List<T> updateInternal(List<EntryUpdateQuery<T>> entries, UpdatePolicy updatePolicy) {
-        try (Jedis jedis = redisExtension.getJedis()) {
-
-            long currentCount = 0;
-            if (options.limitTopN() > 0) {
-                currentCount = jedis.zcard(key);
-            }
-
-            Pipeline pipeline = jedis.pipelined();
+    private CompletableFuture<List<T>> updateBatch(List<EntryUpdateQuery<T>> entries, List<UpdatePolicy> updatePolicies) {
+        byte[][] members = new byte[entries.size()][];
+        double[] scores = new double[entries.size()];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = memberCodec.encode(entries.get(i).id());
+            scores[i] = entries.get(i).value().doubleValue();
+        }
+        return updateMembers(members, scores, updatePolicies);
+    }
 
-            updatePipe(entries, pipeline, updatePolicy);
+    private CompletableFuture<List<T>> updateMembers(byte[][] members, double[] scores, List<UpdatePolicy> updatePolicies) {
+        int[] resultIndexes = new int[members.length];
+        List<RedisCommand> commands = updateCommands(members, scores, updatePolicies, resultIndexes);
 
-            if (options.limitTopN() > 0 && currentCount + entries.size() > options.limitTopN()) {
-                if (options.sortPolicy() == SortPolicy.HIGH_TO_LOW) {
-                    pipeline.zremrangeByRank(key, 0, currentCount + entries.size() - options.limitTopN() - 1);
+        return executeWithRetry(() -> sendUpdates(commands), 3).thenApply(results -> {
+            List<T> values = new ArrayList<>(members.length);
+            for (int resultIndex : resultIndexes) {
+                Object result = results.get(resultIndex);
+                if (result instanceof Long) {
+                    Integer intValue = ((Long) result).intValue();
+                    values.add(clazz == Integer.class ? (T) intValue : (T) Long.valueOf(intValue));
+                } else if (result instanceof byte[]) {
+                    values.add(getT(parseScore(result)));
                 } else {
-                    pipeline.zremrangeByRank(key, options.limitTopN(), -1);
+                    values.add(null);
                 }
             }
+            return values;
+        });
+    }
 
-            List<Object> results = pipeline.syncAndReturnAll();
+    /**
+     * Applies primitive scores without building {@link EntryUpdateQuery} objects or decoding replies.
+     *
+     * @param ids the members to update
+     * @param scores the score of each member
+     * @param updatePolicy the update policy to use, or {@code null} for the leaderboard default
+     */
+    CompletableFuture<Void> updateScores(String[] ids, IntToDoubleFunction scores, UpdatePolicy updatePolicy) {
+        List<RedisCommand> commands = new ArrayList<>(ids.length + 1);
+        for (int i = 0; i < ids.length; i++) {
+            appendUpdateCommands(memberCodec.encode(ids[i]), scores.applyAsDouble(i), updatePolicy, commands);
+        }
+        return executeWithRetry(() -> sendUpdates(commands), 3).thenApply(results -> null);
+    }
 
-            return results.stream().limit(entries.size()).map(result -> {
-                if (result instanceof Long) {
-                    Integer intValue = ((Long) result).intValue();
-                    return clazz == Integer.class ? (T) intValue : (T) Long.valueOf(intValue);
-                } else {
-                    return null;
-                }
-            }).collect(Collectors.toList());
-
-        } catch (Exception e) {
-            log.error("Failed to update leaderboard entries", e);
-            throw new RuntimeException("Failed to update leaderboard entries", e);
-        }
-    }
-
-    private <R> R executeWithRetry(java.util.function.Supplier<R> operation, int maxRetries) {
-        int attempt = 0;
-        while (attempt < maxRetries) {
-            try {
-                return operation.get();
-            } catch (RuntimeException e) {
-                if (e.getCause() instanceof JedisConnectionException && attempt < maxRetries - 1) {
-                    attempt++;
-                    long backoffMs = (long) Math.pow(2, attempt - 1) * 1000; // Exponential backoff: 1s, 2s, 4s
-                    log.warn("Redis connection timeout on attempt {}/{}, retrying in {}ms", 
-                            attempt, maxRetries, backoffMs, e.getCause());
-                    try {
-                        Thread.sleep(backoffMs);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        throw new RuntimeException("Interrupted during retry backoff", ie);
-                    }
-                } else {
-                    throw e;
-                }
+    /**
+     * Sends update commands, wrapped together with the top-N trim in one MULTI/EXEC block when the
+     * leaderboard is limited, and returns the replies of the update commands.
+     */
+    private CompletableFuture<List<Object>> sendUpdates(List<RedisCommand> commands) {
+        return sendUpdateCommands(commands).handle((results, error) -> {
+            if (error != null) {
+                Throwable cause = unwrap(error);
+                log.error("Failed to update leaderboard entries", cause);
+                throw new RuntimeException("Failed to update leaderboard entries", cause);
+            }
+            return results;
+        });
+    }
+
+    private CompletableFuture<List<Object>> sendUpdateCommands(List<RedisCommand> commands) {
+        CycleRegistration registration = cycleRegistration;
+        if (options.limitTopN() <= 0 && registration == null) {
+            return transport().pipeline(commands);
+        }
+
+        // Update, trim and registration run as one MULTI/EXEC block sent in a single round trip,
+        // so the trim always sees the cardinality produced by these very updates.
+        List<RedisCommand> transaction = new ArrayList<>(commands.size() + 5);
+        transaction.add(new RedisCommand(Command.MULTI));
+        transaction.addAll(commands);
+        if (options.limitTopN() > 0) {
+            transaction.add(trimCommand());
+        }
+        if (registration != null) {
+            transaction.addAll(registration.onWrite());
+        }
+        transaction.add(new RedisCommand(Command.EXEC));
+
+        return transport().pipeline(transaction).thenApply(results -> {
+            Object exec = results.get(results.size() - 1);
+            if (exec instanceof RuntimeException) {
+                throw (RuntimeException) exec;
             }
+            List<Object> execResults = ReplyDecoder.asList(exec);
+            if (options.limitTopN() > 0 && execResults.get(commands.size()) instanceof Exception trimError) {
+                log.warn("Failed to trim leaderboard {} to its top {} entries", key, options.limitTopN(), trimError);
+            }
+            return execResults;
+        });
+    }
+
+    private RedisCommand trimCommand() {
+        return new RedisCommand(Command.EVALSHA, SafeEncoder.encode(redisExtension.getScriptSha("zkeeptop")),
+                Protocol.toByteArray(1), keyBytes, Protocol.toByteArray(options.limitTopN()),
+                SafeEncoder.encode(options.sortPolicy().getValue()), Protocol.toByteArray(options.trimSlack()));
+    }
+
+    /**
+     * Appends the commands of the given updates, followed by the top-N trim if the leaderboard is limited,
+     * for sending them together with the updates of other leaderboards.
+     */
+    void appendUpdates(List<EntryUpdateQuery<T>> entries, UpdatePolicy updatePolicy, List<RedisCommand> commands) {
+        for (EntryUpdateQuery<T> entry : entries) {
+            appendUpdateCommands(memberCodec.encode(entry.id()), entry.value().doubleValue(), updatePolicy, commands);
+        }
+        if (options.limitTopN() > 0) {
+            commands.add(trimCommand());
+        }
+        CycleRegistration registration = cycleRegistration;
+        if (registration != null) {
+            commands.addAll(registration.onWrite());
+        }
+    }
+
+    CycleRegistration cycleRegistration() {
+        return cycleRegistration;
+    }
+
+    /**
+     * Makes every write of this leaderboard also run the commands of the given cycle registration.
+     */
+    void setCycleRegistration(CycleRegistration cycleRegistration) {
+        this.cycleRegistration = cycleRegistration;
+    }
+
+    <R> CompletableFuture<R> executeWithRetry(Supplier<CompletableFuture<R>> operation, int maxRetries) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        executeWithRetry(operation, maxRetries, 0, result);
+        return result;
+    }
+
+    private <R> void executeWithRetry(Supplier<CompletableFuture<R>> operation, int maxRetries, int attempt, CompletableFuture<R> result) {
+        CompletableFuture<R> future;
+        try {
+            future = operation.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
         }
-        throw new RuntimeException("Should not reach here");
+
+        future.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+
+            Throwable e = unwrap(error);
+            if (e.getCause() instanceof JedisConnectionException && attempt < maxRetries - 1) {
+                long backoffMs = (long) Math.pow(2, attempt) * 1000; // Exponential backoff: 1s, 2s, 4s
+                log.warn("Redis connection timeout on attempt {}/{}, retrying in {}ms",
+                        attempt + 1, maxRetries, backoffMs, e.getCause());
+                CompletableFuture.delayedExecutor(backoffMs, TimeUnit.MILLISECONDS, redisExtension.getExecutor())
+                        .execute(() -> executeWithRetry(operation, maxRetries, attempt + 1, result));
+            } else {
+                result.completeExceptionally(e);
+            }
+        });
     }
 
-    @FunctionalInterface
-    private interface PipelineCommand<T extends Number> {
-        void apply(EntryUpdateQuery<T> entry);
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
     }
 
+    /**
+     * Appends the commands for the given updates to a Jedis pipeline.
+     * <p>
+     * The pipeline receives the raw replies of the commands: the number of added members
+     * for {@code ZADD} and the new score for {@code ZINCRBY}. {@code BEST} updates reply with
+     * the kept score, either from the Lua fallback or from a {@code ZSCORE} that follows the
+     * native {@code ZADD GT/LT} on Redis 6.2+.
+     * </p>
+     *
+     * @param entries the updates to apply
+     * @param pipeline the pipeline to append the commands to
+     * @param customUpdatePolicy the update policy to use, or {@code null} for the leaderboard default
+     */
     public void updatePipe(List<EntryUpdateQuery<T>> entries, Pipeline pipeline, UpdatePolicy customUpdatePolicy) {
+        for (EntryUpdateQuery<T> entry : entries) {
+            List<RedisCommand> commands = new ArrayList<>(2);
+            appendUpdateCommands(memberCodec.encode(entry.id()), entry.value().doubleValue(), customUpdatePolicy, commands);
+            for (RedisCommand command : commands) {
+                pipeline.sendCommand(command.command(), command.args());
+            }
+        }
+        CycleRegistration registration = cycleRegistration;
+        if (registration != null) {
+            for (RedisCommand command : registration.onWrite()) {
+                pipeline.sendCommand(command.command(), command.args());
+            }
+        }
+    }
+
+    /**
+     * Builds the commands for the given updates, storing for each entry the index of the
+     * command whose reply carries that entry's result.
+     */
+    private List<RedisCommand> updateCommands(byte[][] members, double[] scores, List<UpdatePolicy> customUpdatePolicies, int[] resultIndexes) {
+        List<RedisCommand> commands = new ArrayList<>(members.length + 1);
+        for (int i = 0; i < members.length; i++) {
+            appendUpdateCommands(members[i], scores[i], customUpdatePolicies.get(i), commands);
+            resultIndexes[i] = commands.size() - 1;
+        }
+        return commands;
+    }
+
+    private void appendUpdateCommands(byte[] member, double score, UpdatePolicy customUpdatePolicy, List<RedisCommand> commands) {
         UpdatePolicy effectiveUpdatePolicy = (customUpdatePolicy != null) ? customUpdatePolicy : options.updatePolicy();
 
-        PipelineCommand<T> fn = switch (effectiveUpdatePolicy) {
-            case REPLACE -> (entry) -> pipeline.zadd(key, entry.value().doubleValue(), entry.id());
-            case AGGREGATE -> (entry) -> pipeline.zincrby(key, entry.value().doubleValue(), entry.id());
+        switch (effectiveUpdatePolicy) {
+            case REPLACE -> commands.add(new RedisCommand(Command.ZADD, keyBytes, Protocol.toByteArray(score), member));
+            case AGGREGATE -> commands.add(new RedisCommand(Command.ZINCRBY, keyBytes, Protocol.toByteArray(score), member));
             case BEST -> {
-                String scriptSha = redisExtension.getScriptSha("zbest");
-                yield (entry) -> pipeline.evalsha(scriptSha, 1, key, String.valueOf(entry.value()), entry.id(), options.sortPolicy() == SortPolicy.HIGH_TO_LOW ? "desc" : "asc");
+                if (redisExtension.isServerVersionAtLeast(6, 2)) {
+                    Keyword comparison = options.sortPolicy() == SortPolicy.HIGH_TO_LOW ? Keyword.GT : Keyword.LT;
+                    commands.add(new RedisCommand(Command.ZADD, keyBytes, comparison.getRaw(), Protocol.toByteArray(score), member));
+                    commands.add(new RedisCommand(Command.ZSCORE, keyBytes, member));
+                } else {
+                    commands.add(new RedisCommand(Command.EVALSHA, SafeEncoder.encode(redisExtension.getScriptSha("zbest")),
+                            Protocol.toByteArray(1), keyBytes, Protocol.toByteArray(score), member,
+                            SafeEncoder.encode(options.sortPolicy() == SortPolicy.HIGH_TO_LOW ? "desc" : "asc")));
+                }
             }
-        };
-
-        for (EntryUpdateQuery<T> entry : entries) {
-            fn.apply(entry);
         }
     }
 
     public CompletableFuture<Void> remove(String... ids) {
-        return CompletableFuture.runAsync(() -> {
-            try (Jedis jedis = redisExtension.getJedis()) {
-                jedis.zrem(key, ids);
-            }
-        });
+        byte[][] args = new byte[ids.length + 1][];
+        args[0] = keyBytes;
+        for (int i = 0; i < ids.length; i++) {
+            args[i + 1] = memberCodec.encode(ids[i]);
+        }
+        return transport().execute(new RedisCommand(Command.ZREM, args)).thenApply(ignored -> null);
+    }
+
+    public CompletableFuture<Void> remove(byte[]... ids) {
+        byte[][] args = new byte[ids.length + 1][];
+        args[0] = keyBytes;
+        System.arraycopy(ids, 0, args, 1, ids.length);
+        return transport().execute(new RedisCommand(Command.ZREM, args)).thenApply(ignored -> null);
     }
 
     public CompletableFuture<Void> clear() {
-        return CompletableFuture.runAsync(() -> {
-            try (Jedis jedis = redisExtension.getJedis()) {
-                jedis.del(key);
-            }
-        });
+        CycleRegistration registration = cycleRegistration;
+        if (registration != null) {
+            return transport().pipeline(List.of(new RedisCommand(Command.MULTI), new RedisCommand(Command.DEL, keyBytes),
+                    registration.onClear(), new RedisCommand(Command.EXEC))).thenApply(results -> {
+                if (results.get(results.size() - 1) instanceof RuntimeException error) {
+                    throw error;
+                }
+                return null;
+            });
+        }
+        return transport().execute(new RedisCommand(Command.DEL, keyBytes)).thenApply(ignored -> null);
     }
 
     public CompletableFuture<List<Entry<T>>> list(long lower, long upper) {
+        return list(lower, upper, this::toEntries);
+    }
+
+    /**
+     * Reads the entries between the given 1-based ranks and decodes the flat
+     * {@code member, score...} reply together with the rank of its first entry.
+     */
+    <R> CompletableFuture<R> list(long lower, long upper, BiFunction<List<Object>, Long, R> decoder) {
         final long finalLower = Math.max(lower, 1);
         final long finalUpper = Math.max(upper, 1);
 
-        return CompletableFuture.supplyAsync(() -> {
-            try (Jedis jedis = redisExtension.getJedis()) {
-                List<Tuple> results = options.sortPolicy() == SortPolicy.LOW_TO_HIGH ?
-                        jedis.zrangeWithScores(key, finalLower - 1, finalUpper - 1) :
-                        jedis.zrevrangeWithScores(key, finalLower - 1, finalUpper - 1);
+        return transport().execute(rangeCommand(finalLower - 1, finalUpper - 1))
+                .thenApply(results -> decoder.apply(ReplyDecoder.asList(results), finalLower));
+    }
 
-                List<Entry<T>> entries = new ArrayList<>();
-                long rank = finalLower;
-                for (Tuple tuple : results) {
-                    entries.add(new Entry<T>(tuple.getElement(), getT(tuple), rank++));
+    /**
+     * Reads consecutive pages starting at the given 1-based rank with one pipelined round trip,
+     * decoding each page like {@link #list(long, long, BiFunction)}.
+     */
+    <P> CompletableFuture<List<P>> listPages(long firstRank, int batchSize, int pages, BiFunction<List<Object>, Long, P> decoder) {
+        List<RedisCommand> commands = new ArrayList<>(pages);
+        for (int i = 0; i < pages; i++) {
+            long lower = firstRank + (long) i * batchSize;
+            commands.add(rangeCommand(lower - 1, lower + batchSize - 2));
+        }
+        return transport().pipeline(commands).thenApply(results -> {
+            List<P> decoded = new ArrayList<>(pages);
+            for (int i = 0; i < pages; i++) {
+                Object result = results.get(i);
+                if (result instanceof RuntimeException) {
+                    throw (RuntimeException) result;
                 }
-                return entries;
+                decoded.add(decoder.apply(ReplyDecoder.asList(result), firstRank + (long) i * batchSize));
             }
+            return decoded;
         });
     }
 
-    public CompletableFuture<List<Entry<T>>> listByScore(double min, double max) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Jedis jedis = redisExtension.getJedis()) {
-                String scriptSha = redisExtension.getScriptSha("zrangescore");
-                Object result = jedis.evalsha(scriptSha, 1, key, String.valueOf(min), String.valueOf(max), options.sortPolicy().name());
-
-                if (result instanceof List) {
-                    List<Object> resultList = (List<Object>) result;
-                    long baseRank = (long) resultList.get(0);
-                    if (baseRank == -1) {
-                        return Collections.emptyList();
-                    }
-                    List<Object> rawEntries = (List<Object>) resultList.get(1);
-
-                    List<Entry<T>> entries = new ArrayList<>();
-                    for (int i = 0; i < rawEntries.size(); i += 2) {
-                        String memberId;
-                        if (rawEntries.get(i) instanceof byte[]) {
-                            memberId = new String((byte[]) rawEntries.get(i));
-                        } else {
-                            memberId = (String) rawEntries.get(i);
-                        }
-
-                        double score;
-                        if (rawEntries.get(i + 1) instanceof byte[]) {
-                            score = Double.parseDouble(new String((byte[]) rawEntries.get(i + 1)));
-                        } else {
-                            score = Double.parseDouble((String) rawEntries.get(i + 1));
-                        }
-
-                        entries.add(new Entry<>(memberId, getT(new Tuple(memberId, score)), baseRank + i / 2 + 1));
-                    }
-                    return entries;
-                }
-                return Collections.emptyList();
-            }
+    /**
+     * Returns the entries between the given 1-based ranks with their raw member identifiers.
+     *
+     * @param lower the rank of the first entry
+     * @param upper the rank of the last entry
+     * @return the entries, without decoding members to strings
+     */
+    public CompletableFuture<List<BinaryEntry<T>>> listBinary(long lower, long upper) {
+        return list(lower, upper, (results, firstRank) -> {
+            List<BinaryEntry<T>> entries = new ArrayList<>(results.size() / 2);
+            ReplyDecoder.forEachPair(results, (index, member, score) ->
+                    entries.add(new BinaryEntry<>(member, getT(ReplyDecoder.parseScore(score)), firstRank + index)));
+            return entries;
         });
     }
 
+    public CompletableFuture<List<BinaryEntry<T>>> topBinary(int max) {
+        return listBinary(1, max);
+    }
+
+    public CompletableFuture<List<Entry<T>>> listByScore(double min, double max) {
+        byte[] scriptSha = SafeEncoder.encode(redisExtension.getScriptSha("zrangescore"));
+        return transport().execute(new RedisCommand(Command.EVALSHA, scriptSha, Protocol.toByteArray(1), keyBytes,
+                        SafeEncoder.encode(String.valueOf(min)), SafeEncoder.encode(String.valueOf(max)),
+                        SafeEncoder.encode(options.sortPolicy().name())))
+                .thenApply(this::toRankedEntries);
+    }
+
     public CompletableFuture<List<Entry<T>>> top(int max) {
+        if (nearCache != null && max >= 1 && max <= nearCache.size()) {
+            return nearCache.entries().thenApply(entries -> entries.subList(0, Math.min(max, entries.size())));
+        }
         return list(1, max);
     }
 
     public CompletableFuture<List<Entry<T>>> bottom(int max) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Jedis jedis = redisExtension.getJedis()) {
-                long count = jedis.zcard(key);
-                List<Tuple> results = options.sortPolicy() == SortPolicy.LOW_TO_HIGH ?
-                        jedis.zrangeWithScores(key, -Math.max(1, max), -1) :
-                        jedis.zrevrangeWithScores(key, -Math.max(1, max), -1);
-
-                List<Entry<T>> entries = new ArrayList<>();
-                long rank = count - results.size() + 1;
-                for (Tuple tuple : results) {
-                    entries.add(new Entry<T>(tuple.getElement(), getT(tuple), rank++));
-                }
-                Collections.reverse(entries);
-                return entries;
-            }
+        List<RedisCommand> commands = new ArrayList<>(2);
+        commands.add(new RedisCommand(Command.ZCARD, keyBytes));
+        commands.add(options.sortPolicy() == SortPolicy.LOW_TO_HIGH ?
+                rangeCommand(Command.ZRANGE, -Math.max(1, max), -1) :
+                rangeCommand(Command.ZREVRANGE, -Math.max(1, max), -1));
+
+        return transport().pipeline(commands).thenApply(results -> {
+            long count = (Long) results.get(0);
+            List<Object> range = ReplyDecoder.asList(results.get(1));
+            List<Entry<T>> entries = toEntries(range, count - range.size() / 2 + 1);
+            Collections.reverse(entries);
+            return entries;
         });
     }
 
     public CompletableFuture<List<Entry<T>>> around(String id, int distance, boolean fillBorders) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Jedis jedis = redisExtension.getJedis()) {
-                String scriptSha = redisExtension.getScriptSha("zaround");
-                Object result = jedis.evalsha(scriptSha, 1, key, id, String.valueOf(distance), String.valueOf(fillBorders), options.sortPolicy().name());
-
-                if (result instanceof List) {
-                    List<Object> resultList = (List<Object>) result;
-                    long baseRank = (long) resultList.get(0);
-                    if (baseRank == -1) {
-                        return Collections.emptyList();
-                    }
-                    List<Object> rawEntries = (List<Object>) resultList.get(1);
-
-                    List<Entry<T>> entries = new ArrayList<>();
-                    for (int i = 0; i < rawEntries.size(); i += 2) {
-                        String memberId;
-                        if (rawEntries.get(i) instanceof byte[]) {
-                            memberId = new String((byte[]) rawEntries.get(i));
-                        } else {
-                            memberId = (String) rawEntries.get(i);
-                        }
-
-                        double score;
-                        if (rawEntries.get(i + 1) instanceof byte[]) {
-                            score = Double.parseDouble(new String((byte[]) rawEntries.get(i + 1)));
-                        } else {
-                            score = Double.parseDouble((String) rawEntries.get(i + 1));
-                        }
-
-                        entries.add(new Entry<>(memberId, getT(new Tuple(memberId, score)), baseRank + i / 2 + 1));
-                    }
-                    return entries;
-                }
-                return Collections.emptyList();
-            }
-        });
+        byte[] scriptSha = SafeEncoder.encode(redisExtension.getScriptSha("zaround"));
+        return transport().execute(new RedisCommand(Command.EVALSHA, scriptSha, Protocol.toByteArray(1), keyBytes,
+                        memberCodec.encode(id), Protocol.toByteArray(distance), Protocol.toByteArray(fillBorders),
+                        SafeEncoder.encode(options.sortPolicy().name())))
+                .thenApply(this::toRankedEntries);
     }
 
     public ExportStream<T> exportStream(int batchSize) {
         return new ExportStream<T>(this, batchSize);
     }
 
-    public CompletableFuture<Long> count() {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Jedis jedis = redisExtension.getJedis()) {
-                return jedis.zcard(key);
+    /**
+     * Creates a stream over all entries that keeps {@code readAhead} pages in flight beyond
+     * the one being consumed.
+     *
+     * @param batchSize the number of entries per page
+     * @param readAhead the number of pages fetched ahead of the consumer (0 to fetch on demand)
+     * @return a new export stream
+     */
+    public ExportStream<T> exportStream(int batchSize, int readAhead) {
+        return new ExportStream<T>(this, batchSize, readAhead);
+    }
+
+    /**
+     * Creates a non-blocking iterator over all entries, reading {@link ExportStream#DEFAULT_READ_AHEAD}
+     * pages ahead of the consumer.
+     *
+     * @param batchSize the number of entries per page
+     * @return a new asynchronous page iterator
+     */
+    public AsyncPageIterator<T> exportAsync(int batchSize) {
+        return exportAsync(batchSize, ExportStream.DEFAULT_READ_AHEAD);
+    }
+
+    /**
+     * Creates a non-blocking iterator over all entries.
+     *
+     * @param batchSize the number of entries per page
+     * @param readAhead the number of pages fetched ahead of the consumer (0 to fetch on demand)
+     * @return a new asynchronous page iterator
+     */
+    public AsyncPageIterator<T> exportAsync(int batchSize, int readAhead) {
+        return new AsyncPageIterator<>(entryPages(batchSize, readAhead, 1));
+    }
+
+    /**
+     * Creates a publisher of all entries, in rank order, reading {@link ExportStream#DEFAULT_READ_AHEAD}
+     * pages ahead of the subscriber.
+     *
+     * @param batchSize the number of entries per page
+     * @return a publisher that exports the leaderboard anew for every subscriber
+     */
+    public Flow.Publisher<Entry<T>> exportPublisher(int batchSize) {
+        return exportPublisher(batchSize, ExportStream.DEFAULT_READ_AHEAD);
+    }
+
+    /**
+     * Creates a publisher of all entries, in rank order.
+     * <p>
+     * Pages are read only while the subscriber has outstanding demand, so at most the current
+     * page and {@code readAhead} further pages are buffered per subscription, however slow the
+     * subscriber is. Signals are delivered on the threads completing the Redis replies, so
+     * subscribers must not block.
+     * </p>
+     *
+     * @param batchSize the number of entries per page
+     * @param readAhead the number of pages fetched ahead of the subscriber (0 to fetch on demand)
+     * @return a publisher that exports the leaderboard anew for every subscriber
+     */
+    public Flow.Publisher<Entry<T>> exportPublisher(int batchSize, int readAhead) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        if (readAhead < 0) {
+            throw new IllegalArgumentException("readAhead must not be negative");
+        }
+        return subscriber -> new ExportSubscription<>(subscriber, entryPages(batchSize, readAhead, 1)).start();
+    }
+
+    PageIterator<List<Entry<T>>> entryPages(int batchSize, int readAhead, long firstRank) {
+        return new PageIterator<>((rank, size, count) -> listPages(rank, size, count, this::toEntries),
+                List::size, batchSize, readAhead, firstRank);
+    }
+
+    PageIterator<ExportStream.Batch<T>> exportBatches(int batchSize, int readAhead, long firstRank) {
+        return new PageIterator<>((rank, size, count) -> listPages(rank, size, count, this::toBatch),
+                batch -> batch.entries().size(), batchSize, readAhead, firstRank);
+    }
+
+    private ExportStream.Batch<T> toBatch(List<Object> results, long firstRank) {
+        List<Entry<T>> entries = toEntries(results, firstRank);
+        if (entries.isEmpty()) {
+            return new ExportStream.Batch<>(entries, 0, null);
+        }
+        int last = results.size() - 2;
+        return new ExportStream.Batch<>(entries, ReplyDecoder.parseScore((byte[]) results.get(last + 1)), (byte[]) results.get(last));
+    }
+
+    /**
+     * Writes all entries to a compact binary dump file, replacing the file if it exists.
+     * <p>
+     * The file holds the raw member bytes and scores in rank order, in deflated and checksummed
+     * blocks. The leaderboard is read in large pipelined pages while it keeps accepting writes;
+     * dump a {@link #snapshot(Duration) snapshot} to capture a single point in time.
+     * </p>
+     *
+     * @param file the file to write
+     * @return the number of dumped entries
+     * @throws IOException if the file cannot be written
+     * @see #restore(Path)
+     */
+    public long dump(Path file) throws IOException {
+        return SnapshotFile.dump(this, file);
+    }
+
+    /**
+     * Replaces the contents of the leaderboard with the entries of a dump file.
+     * <p>
+     * The file is memory-mapped block by block and every block is verified before its entries are
+     * sent as pipelined {@code ZADD} commands over several connections. The entries are loaded into
+     * a temporary key that is renamed over the leaderboard key at the end, so readers see either
+     * the old or the complete restored contents. A dump may be restored into any leaderboard using
+     * the same {@link MemberCodec} as the dumped one.
+     * </p>
+     *
+     * @param file the dump file written by {@link #dump(Path)}
+     * @return the number of restored entries
+     * @throws IOException if the file cannot be read or is corrupted
+     */
+    public long restore(Path file) throws IOException {
+        return SnapshotFile.restore(this, file);
+    }
+
+    /**
+     * Writes all entries in rank order as text lines into the given stream, which is left open.
+     *
+     * @param out the stream to write to
+     * @param format the line format
+     * @param gzip whether to gzip-compress the output
+     * @return the number of exported entries
+     * @throws IOException if writing to the stream fails
+     * @see #exportText(WritableByteChannel, TextFormat, boolean)
+     */
+    public long exportText(OutputStream out, TextFormat format, boolean gzip) throws IOException {
+        return TextExporter.export(this, Channels.newChannel(out), format, gzip);
+    }
+
+    /**
+     * Writes all entries in rank order as text lines into the given channel, which is left open.
+     * <p>
+     * The export streams pages straight into one reused buffer without building entry objects or
+     * strings, so its memory use is constant and its throughput is bound by the output. Like
+     * {@link #exportStream(int)} it reads a live leaderboard; export a {@link #snapshot(Duration) snapshot}
+     * to capture a single point in time.
+     * </p>
+     *
+     * @param channel the channel to write to
+     * @param format the line format
+     * @param gzip whether to gzip-compress the output
+     * @return the number of exported entries
+     * @throws IOException if writing to the channel fails
+     */
+    public long exportText(WritableByteChannel channel, TextFormat format, boolean gzip) throws IOException {
+        return TextExporter.export(this, channel, format, gzip);
+    }
+
+    /**
+     * Creates a stream over all entries, in rank order, read in batches of the given size.
+     * <p>
+     * The leaderboard size is read when the terminal operation starts and the rank range
+     * {@code [1, count]} is split into independent segments. A {@linkplain Stream#parallel() parallel}
+     * stream fetches and processes segments concurrently, each on its own pooled connection,
+     * so jobs mapping over every member scale with cores and connections.
+     * </p>
+     * <p>
+     * Segments are read at different times, so entries whose rank changes while the stream runs
+     * may be skipped or reported twice.
+     * </p>
+     *
+     * @param batchSize the number of entries fetched per request
+     * @return a sequential stream of the entries, which may be turned parallel
+     */
+    public Stream<Entry<T>> stream(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        return StreamSupport.stream(() -> new RankRangeSpliterator<>(this, 1, count().join(), batchSize),
+                Spliterator.ORDERED | Spliterator.NONNULL, false);
+    }
+
+    /**
+     * Freezes the current contents of the leaderboard into a temporary key for a consistent export.
+     * <p>
+     * The sorted set is copied server-side and atomically together with setting the time to live of
+     * the copy, with {@code COPY} on Redis 6.2+ and {@code ZUNIONSTORE} on older servers. Copying is
+     * O(N) on the server; the source leaderboard keeps accepting writes right afterwards.
+     * </p>
+     *
+     * @param ttl how long the copy is kept if the snapshot is not closed, which must cover the export
+     * @return the snapshot, which should be closed when the export is finished
+     */
+    public CompletableFuture<LeaderboardSnapshot<T>> snapshot(Duration ttl) {
+        if (ttl.toMillis() < 1) {
+            throw new IllegalArgumentException("ttl must be at least one millisecond");
+        }
+        byte[] snapshotKey = concat(keyBytes, SafeEncoder.encode(SNAPSHOT_INFIX + UUID.randomUUID()));
+        RedisCommand copy = redisExtension.isServerVersionAtLeast(6, 2) ?
+                new RedisCommand(Command.COPY, keyBytes, snapshotKey) :
+                new RedisCommand(Command.ZUNIONSTORE, snapshotKey, Protocol.toByteArray(1), keyBytes);
+        List<RedisCommand> transaction = List.of(new RedisCommand(Command.MULTI), copy,
+                new RedisCommand(Command.PEXPIRE, snapshotKey, Protocol.toByteArray(ttl.toMillis())),
+                new RedisCommand(Command.EXEC));
+
+        return transport().pipeline(transaction).thenApply(results -> {
+            Object exec = results.get(results.size() - 1);
+            if (exec instanceof RuntimeException) {
+                throw (RuntimeException) exec;
             }
+            return new LeaderboardSnapshot<>(snapshotView(snapshotKey), transport(), snapshotKey);
         });
     }
 
+    private Leaderboard<T> snapshotView(byte[] snapshotKey) {
+        return new Leaderboard<>(redisExtension, snapshotKey, clazz, options.withCoalescing(null).withNearCache(null));
+    }
+
+    /**
+     * Continues an export from a checkpoint taken by {@link ExportStream#checkpoint()}.
+     *
+     * @param checkpoint the checkpoint of an export of this leaderboard or of one of its snapshots
+     * @param batchSize the number of entries per batch
+     * @return a stream over the entries following the checkpoint
+     * @throws IllegalArgumentException if the checkpoint belongs to another leaderboard
+     * @throws IllegalStateException if the snapshot the checkpoint was taken on has expired
+     */
+    public ExportStream<T> resumeExport(ExportCheckpoint checkpoint, int batchSize) {
+        return resumeExport(checkpoint, batchSize, ExportStream.DEFAULT_READ_AHEAD);
+    }
+
+    /**
+     * Continues an export from a checkpoint taken by {@link ExportStream#checkpoint()}.
+     * <p>
+     * The export resumes right after the last entry returned before the checkpoint, located by its
+     * score and member, so entries added or removed above it since then do not cause skipped or
+     * repeated entries. If that entry has been removed, the export continues at the position it
+     * would have had.
+     * </p>
+     *
+     * @param checkpoint the checkpoint of an export of this leaderboard or of one of its snapshots
+     * @param batchSize the number of entries per batch
+     * @param readAhead the number of batches fetched ahead of the consumer (0 to fetch on demand)
+     * @return a stream over the entries following the checkpoint
+     * @throws IllegalArgumentException if the checkpoint belongs to another leaderboard
+     * @throws IllegalStateException if the snapshot the checkpoint was taken on has expired
+     */
+    public ExportStream<T> resumeExport(ExportCheckpoint checkpoint, int batchSize, int readAhead) {
+        byte[] exportedKey = checkpoint.key();
+        Leaderboard<T> source = this;
+        if (!Arrays.equals(exportedKey, keyBytes)) {
+            byte[] snapshotPrefix = concat(keyBytes, SafeEncoder.encode(SNAPSHOT_INFIX));
+            if (!Arrays.equals(exportedKey, 0, Math.min(exportedKey.length, snapshotPrefix.length), snapshotPrefix, 0, snapshotPrefix.length)) {
+                throw new IllegalArgumentException("The checkpoint belongs to another leaderboard: " + SafeEncoder.encode(exportedKey));
+            }
+            if ((Long) transport().execute(new RedisCommand(Command.EXISTS, exportedKey)).join() == 0) {
+                throw new IllegalStateException("The snapshot of the checkpoint has expired: " + SafeEncoder.encode(exportedKey));
+            }
+            source = snapshotView(exportedKey);
+        }
+
+        long firstRank = checkpoint.isStart() ? checkpoint.nextRank() :
+                source.seek(checkpoint.lastScore(), checkpoint.lastMember()).join() + 1;
+        return new ExportStream<>(source, batchSize, readAhead, firstRank, checkpoint);
+    }
+
+    /**
+     * Returns the number of entries ordered before or at the given score and member.
+     */
+    private CompletableFuture<Long> seek(double score, byte[] member) {
+        return transport().execute(new RedisCommand(Command.EVALSHA, SafeEncoder.encode(redisExtension.getScriptSha("zseek")),
+                        Protocol.toByteArray(1), keyBytes, SafeEncoder.encode(options.sortPolicy().getValue()),
+                        Protocol.toByteArray(score), member))
+                .thenApply(result -> (Long) result);
+    }
+
+    private static byte[] concat(byte[] prefix, byte[] suffix) {
+        byte[] result = Arrays.copyOf(prefix, prefix.length + suffix.length);
+        System.arraycopy(suffix, 0, result, prefix.length, suffix.length);
+        return result;
+    }
+
+    /**
+     * Creates a write-behind aggregator that sums increments per member and flushes them
+     * with the {@link UpdatePolicy#AGGREGATE} policy.
+     *
+     * @param maxStaleness the longest time an increment may stay buffered before it is flushed
+     * @param maxPendingMembers the number of buffered members that triggers an immediate flush
+     * @return a new aggregator, which must be closed to flush its remaining increments
+     */
+    public ScoreAggregator<T> aggregator(Duration maxStaleness, int maxPendingMembers) {
+        return new ScoreAggregator<>(this, maxStaleness, maxPendingMembers, redisExtension);
+    }
+
+    /**
+     * Returns the counters of the near-cache.
+     *
+     * @return the near-cache counters, or {@code null} if the near-cache is not enabled
+     */
+    public NearCacheStats nearCacheStats() {
+        return nearCache != null ? nearCache.stats() : null;
+    }
+
+    public CompletableFuture<Long> count() {
+        return transport().execute(new RedisCommand(Command.ZCARD, keyBytes)).thenApply(Long.class::cast);
+    }
+
+    byte[] keyBytes() {
+        return keyBytes;
+    }
+
+    MemberCodec memberCodec() {
+        return memberCodec;
+    }
+
+    RedisTransport transport() {
+        return redisExtension.getTransport();
+    }
+
+    private RedisCommand rankCommand(byte[] member) {
+        return new RedisCommand(options.sortPolicy() == SortPolicy.HIGH_TO_LOW ? Command.ZREVRANK : Command.ZRANK, keyBytes, member);
+    }
+
+    private RedisCommand rangeCommand(long start, long stop) {
+        return rangeCommand(options.sortPolicy() == SortPolicy.LOW_TO_HIGH ? Command.ZRANGE : Command.ZREVRANGE, start, stop);
+    }
+
+    private RedisCommand rangeCommand(Command command, long start, long stop) {
+        return new RedisCommand(command, keyBytes, Protocol.toByteArray(start), Protocol.toByteArray(stop), Keyword.WITHSCORES.getRaw());
+    }
+
+    /**
+     * Converts a flat {@code member, score, member, score...} reply into entries with consecutive ranks.
+     */
+    List<Entry<T>> toEntries(List<Object> results, long firstRank) {
+        List<Entry<T>> entries = new ArrayList<>(results.size() / 2);
+        ReplyDecoder.forEachPair(results, (index, member, score) -> entries.add(
+                new Entry<>(memberCodec.decode(member), getT(ReplyDecoder.parseScore(score)), firstRank + index)));
+        return entries;
+    }
+
+    /**
+     * Converts a {@code [baseRank, [member, score...]]} script reply into entries.
+     */
+    private List<Entry<T>> toRankedEntries(Object result) {
+        if (result instanceof List) {
+            List<Object> resultList = ReplyDecoder.asList(result);
+            long baseRank = (long) resultList.get(0);
+            if (baseRank == -1) {
+                return Collections.emptyList();
+            }
+            return toEntries(ReplyDecoder.asList(resultList.get(1)), baseRank + 1);
+        }
+        return Collections.emptyList();
+    }
+
+    static double parseScore(Object score) {
+        return ReplyDecoder.parseScore((byte[]) score);
+    }
+
     /**
-     * Converts Redis tuple score to the appropriate numeric type.
+     * Converts a Redis score to the appropriate numeric type.
      *
-     * @param tuple Redis tuple containing score as double
+     * @param score Redis score as double
      * @return converted score as type T
      * @throws IllegalArgumentException if a class type is not supported
      * @throws ClassCastException if value exceeds target type range
@@ -361,13 +1048,22 @@ public class Leaderboard<T extends Number> {
      * @apiNote Long precision limited by double: ±9,007,199,254,740,992 (2^53)
      * @apiNote Values exceeding Integer.MAX_VALUE will cause overflow
      */
-    private T getT(Tuple tuple) {
-        Number score = switch (clazz.getSimpleName()) {
-            case "Integer" -> (int) Math.round(tuple.getScore());
-            case "Long" -> Math.round(tuple.getScore());
-            case "Double" -> tuple.getScore();
-            default -> throw new IllegalArgumentException("Unsupported class: " + clazz);
+    T getT(double score) {
+        return scoreConverter.apply(score);
+    }
+
+    /**
+     * Picks the score conversion once per leaderboard, so decoding a reply does not have to
+     * look at the score class for every element.
+     */
+    private static <T extends Number> DoubleFunction<T> scoreConverter(Class<T> clazz) {
+        return switch (clazz.getSimpleName()) {
+            case "Integer" -> score -> clazz.cast((int) Math.round(score));
+            case "Long" -> score -> clazz.cast(Math.round(score));
+            case "Double" -> score -> clazz.cast(score);
+            default -> score -> {
+                throw new IllegalArgumentException("Unsupported class: " + clazz);
+            };
         };
-        return clazz.cast(score);
     }
 }
@@ -0,0 +1,219 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A bounded, concurrent cache of leaderboard instances with frequency-aware eviction.
+ * <p>
+ * Hits are a {@link ConcurrentHashMap} read plus a racy increment of a small saturating access
+ * counter, so concurrent readers never lock or contend on shared state. Misses only put a holder
+ * into the map and create the instance outside of the map's bin lock, so a slow factory does not
+ * stall other keys, while concurrent misses on one key still share a single instance.
+ * </p>
+ * <p>
+ * When the capacity is exceeded, a victim is chosen among {@value #EVICTION_SAMPLES} randomly sampled
+ * entries: the one with the lowest access count, the oldest one among equals. Eviction therefore
+ * costs the same for any capacity. Counters are aged by an epoch that advances after every
+ * {@code capacity} evictions; an entry's count is halved once per missed epoch the next time it is
+ * read, so keys that were popular long ago age out while keys in regular use, such as recent cycles,
+ * stay cached. The entry that has just been added is never the victim. Evicted entries are reported
+ * to the eviction listener, so holders of references to them can let go.
+ * </p>
+ *
+ * @param <V> the type of the cached instances
+ */
+final class LeaderboardCache<V> {
+
+    private static final int MAX_FREQUENCY = 255;
+    private static final int EVICTION_SAMPLES = 8;
+
+    private static final class Node<V> {
+        final String key;
+        volatile V value;
+        long sequence;
+        volatile int frequency = 1;
+        volatile int epoch;
+        /**
+         * The position in {@link #entries}, guarded by its lock; -1 while not (yet) sampled.
+         */
+        int index = -1;
+
+        Node(String key, int epoch) {
+            this.key = key;
+            this.epoch = epoch;
+        }
+    }
+
+    private final int capacity;
+    private final ConcurrentHashMap<String, Node<V>> nodes;
+    /**
+     * The initialised entries in a dense list, so eviction can sample them by index.
+     */
+    private final List<Node<V>> entries = new ArrayList<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final BiConsumer<String, V> evictionListener;
+    private volatile int epoch;
+
+    LeaderboardCache(int capacity) {
+        this(capacity, (key, value) -> {
+        });
+    }
+
+    LeaderboardCache(int capacity, BiConsumer<String, V> evictionListener) {
+        this.capacity = capacity;
+        this.evictionListener = evictionListener;
+        this.nodes = new ConcurrentHashMap<>(Math.min(capacity, 1 << 16) * 4 / 3 + 1);
+    }
+
+    V get(String key, Function<String, V> factory) {
+        Node<V> node = nodes.get(key);
+        if (node != null) {
+            hits.increment();
+            int frequency = frequency(node);
+            if (frequency < MAX_FREQUENCY) {
+                node.frequency = frequency + 1;
+            }
+            V value = node.value;
+            return value != null ? value : initialize(node, factory);
+        }
+
+        Node<V> created = new Node<>(key, epoch);
+        node = nodes.putIfAbsent(key, created);
+        if (node != null) {
+            hits.increment();
+            V value = node.value;
+            return value != null ? value : initialize(node, factory);
+        }
+
+        misses.increment();
+        V value = initialize(created, factory);
+        if (nodes.size() > capacity) {
+            evict(key);
+        }
+        return value;
+    }
+
+    /**
+     * Creates the instance of a node once; threads missing on the same key wait for the first one.
+     */
+    private V initialize(Node<V> node, Function<String, V> factory) {
+        synchronized (node) {
+            V value = node.value;
+            if (value != null) {
+                return value;
+            }
+            try {
+                value = factory.apply(node.key);
+            } catch (RuntimeException | Error e) {
+                nodes.remove(node.key, node);
+                throw e;
+            }
+            node.sequence = sequence.incrementAndGet();
+            node.value = value;
+        }
+        synchronized (entries) {
+            // Evicted by a concurrent miss before it could be sampled
+            if (nodes.get(node.key) == node) {
+                node.index = entries.size();
+                entries.add(node);
+            }
+        }
+        return node.value;
+    }
+
+    /**
+     * Returns the access count of the node, halved once for every aging epoch it has not seen yet.
+     */
+    private int frequency(Node<V> node) {
+        int current = epoch;
+        int lag = current - node.epoch;
+        if (lag == 0) {
+            return node.frequency;
+        }
+        int frequency = Math.max(1, node.frequency >>> Math.min(lag, 31));
+        node.frequency = frequency;
+        node.epoch = current;
+        return frequency;
+    }
+
+    private void evict(String keep) {
+        while (nodes.size() > capacity) {
+            if (evictionCount.incrementAndGet() % capacity == 0) {
+                epoch++;
+            }
+            Node<V> victim = sample(keep);
+            if (victim == null) {
+                return;
+            }
+            if (nodes.remove(victim.key, victim)) {
+                removeEntry(victim);
+                evictions.increment();
+                evictionListener.accept(victim.key, victim.value);
+            }
+        }
+    }
+
+    /**
+     * Picks the least frequently used of a few random entries, or of all of them if there are only a few.
+     */
+    private Node<V> sample(String keep) {
+        synchronized (entries) {
+            int size = entries.size();
+            boolean all = size <= EVICTION_SAMPLES;
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            Node<V> lowest = null;
+            int lowestFrequency = 0;
+            for (int i = 0; i < (all ? size : EVICTION_SAMPLES); i++) {
+                Node<V> node = entries.get(all ? i : random.nextInt(size));
+                if (node.key.equals(keep)) {
+                    continue;
+                }
+                int frequency = frequency(node);
+                if (lowest == null || frequency < lowestFrequency
+                        || (frequency == lowestFrequency && node.sequence < lowest.sequence)) {
+                    lowest = node;
+                    lowestFrequency = frequency;
+                }
+            }
+            return lowest;
+        }
+    }
+
+    private void removeEntry(Node<V> node) {
+        synchronized (entries) {
+            int index = node.index;
+            if (index < 0) {
+                return;
+            }
+            Node<V> last = entries.remove(entries.size() - 1);
+            if (last != node) {
+                entries.set(index, last);
+                last.index = index;
+            }
+            node.index = -1;
+        }
+    }
+
+    /**
+     * Returns whether the given instance is still the cached one of the key.
+     */
+    boolean contains(String key, V value) {
+        Node<V> node = nodes.get(key);
+        return node != null && node.value == value;
+    }
+
+    LeaderboardCacheStats stats() {
+        return new LeaderboardCacheStats(hits.sum(), misses.sum(), evictions.sum(), nodes.size());
+    }
+}
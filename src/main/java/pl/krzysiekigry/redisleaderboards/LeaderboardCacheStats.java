@@ -0,0 +1,24 @@
+package pl.krzysiekigry.redisleaderboards;
+
+/**
+ * A point-in-time view of the counters of the {@link Leaderboard} instance cache of a periodic leaderboard.
+ *
+ * @param hits the number of lookups that reused a cached instance
+ * @param misses the number of lookups that created a new instance
+ * @param evictions the number of instances dropped to stay within the capacity
+ * @param size the number of cached instances
+ *
+ * @see PeriodicLeaderboard#cacheStats() for reading the counters
+ */
+public record LeaderboardCacheStats(long hits, long misses, long evictions, int size) {
+
+    /**
+     * Returns the fraction of lookups answered from the cache.
+     *
+     * @return the hit rate between 0 and 1, or 0 if nothing has been looked up yet
+     */
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
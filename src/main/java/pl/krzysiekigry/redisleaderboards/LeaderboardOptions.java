@@ -11,14 +11,87 @@ package pl.krzysiekigry.redisleaderboards;
  * @param sortPolicy the policy determining the sort order of entries (high-to-low or low-to-high)
  * @param updatePolicy the default strategy for handling score updates (replace, aggregate, or best)
  * @param limitTopN the maximum number of entries to keep in the leaderboard (0 for unlimited)
+ * @param coalescing the write coalescing configuration for single-entry updates ({@code null} to disable)
+ * @param trimSlack how many entries a {@code limitTopN} leaderboard may grow beyond its limit before
+ *                  it is trimmed back to {@code limitTopN} (0 to trim on every update)
+ * @param nearCache the in-process near-cache configuration for top entries ({@code null} to disable)
+ * @param memberCodec the encoding of member identifiers in Redis ({@code null} for {@link MemberCodec#UTF8})
  * 
  * @see SortPolicy for available sorting options
  * @see UpdatePolicy for available update strategies
+ * @see CoalescingOptions for write coalescing
+ * @see NearCacheOptions for the near-cache
+ * @see MemberCodec for member encodings
  * @see Leaderboard for usage in leaderboard creation
  */
 public record LeaderboardOptions(
         SortPolicy sortPolicy,
         UpdatePolicy updatePolicy,
-        int limitTopN
+        int limitTopN,
+        CoalescingOptions coalescing,
+        int trimSlack,
+        NearCacheOptions nearCache,
+        MemberCodec memberCodec
 ) {
+
+    public LeaderboardOptions {
+        if (trimSlack < 0) {
+            throw new IllegalArgumentException("trimSlack must not be negative");
+        }
+    }
+
+    /**
+     * Creates leaderboard options without write coalescing, trim slack or near-cache, storing members as UTF-8.
+     *
+     * @param sortPolicy the policy determining the sort order of entries
+     * @param updatePolicy the default strategy for handling score updates
+     * @param limitTopN the maximum number of entries to keep in the leaderboard (0 for unlimited)
+     */
+    public LeaderboardOptions(SortPolicy sortPolicy, UpdatePolicy updatePolicy, int limitTopN) {
+        this(sortPolicy, updatePolicy, limitTopN, null, 0, null, null);
+    }
+
+    /**
+     * Returns a copy of these options with the given write coalescing configuration.
+     *
+     * @param coalescing the write coalescing configuration, or {@code null} to disable coalescing
+     * @return the updated options
+     */
+    public LeaderboardOptions withCoalescing(CoalescingOptions coalescing) {
+        return new LeaderboardOptions(sortPolicy, updatePolicy, limitTopN, coalescing, trimSlack, nearCache, memberCodec);
+    }
+
+    /**
+     * Returns a copy of these options with the given trim slack.
+     * <p>
+     * A positive slack amortizes trimming: the leaderboard is cut back to {@code limitTopN} entries only
+     * once it holds more than {@code limitTopN + trimSlack}, so reads may observe up to that many entries.
+     * </p>
+     *
+     * @param trimSlack the number of entries the leaderboard may exceed its limit by
+     * @return the updated options
+     */
+    public LeaderboardOptions withTrimSlack(int trimSlack) {
+        return new LeaderboardOptions(sortPolicy, updatePolicy, limitTopN, coalescing, trimSlack, nearCache, memberCodec);
+    }
+
+    /**
+     * Returns a copy of these options with the given near-cache configuration.
+     *
+     * @param nearCache the near-cache configuration, or {@code null} to disable the near-cache
+     * @return the updated options
+     */
+    public LeaderboardOptions withNearCache(NearCacheOptions nearCache) {
+        return new LeaderboardOptions(sortPolicy, updatePolicy, limitTopN, coalescing, trimSlack, nearCache, memberCodec);
+    }
+
+    /**
+     * Returns a copy of these options with the given member codec.
+     *
+     * @param memberCodec the encoding of member identifiers, or {@code null} for {@link MemberCodec#UTF8}
+     * @return the updated options
+     */
+    public LeaderboardOptions withMemberCodec(MemberCodec memberCodec) {
+        return new LeaderboardOptions(sortPolicy, updatePolicy, limitTopN, coalescing, trimSlack, nearCache, memberCodec);
+    }
 }
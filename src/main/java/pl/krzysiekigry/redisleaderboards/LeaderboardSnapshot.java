@@ -0,0 +1,99 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import redis.clients.jedis.Protocol.Command;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * A frozen, server-side copy of a leaderboard taken at a single point in time.
+ * <p>
+ * The copy lives in a temporary key that expires after the time to live given when the snapshot
+ * was taken, so it is reclaimed even if the snapshot is never closed. Writes to the source
+ * leaderboard do not affect the snapshot, which makes every export of it exact: no member is
+ * skipped or duplicated by rank shifts, and pages or parallel segments may be read in any order.
+ * </p>
+ * <p>
+ * Close the snapshot as soon as the export is finished to delete the copy.
+ * </p>
+ *
+ * @param <T> the numeric type of the leaderboard scores
+ *
+ * @see Leaderboard#snapshot(Duration) for taking snapshots
+ */
+public class LeaderboardSnapshot<T extends Number> implements AutoCloseable {
+
+    private final Leaderboard<T> leaderboard;
+    private final RedisTransport transport;
+    private final byte[] key;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    LeaderboardSnapshot(Leaderboard<T> leaderboard, RedisTransport transport, byte[] key) {
+        this.leaderboard = leaderboard;
+        this.transport = transport;
+        this.key = key;
+    }
+
+    /**
+     * Returns a leaderboard over the copy. It is meant for reading; its write methods still work, but
+     * they only change the copy and never the source leaderboard.
+     *
+     * @return the leaderboard reading the temporary key
+     */
+    public Leaderboard<T> leaderboard() {
+        return leaderboard;
+    }
+
+    /**
+     * Returns the temporary key holding the copy.
+     *
+     * @return a copy of the key bytes
+     */
+    public byte[] key() {
+        return key.clone();
+    }
+
+    public CompletableFuture<Long> count() {
+        return leaderboard.count();
+    }
+
+    public CompletableFuture<List<Entry<T>>> list(long lower, long upper) {
+        return leaderboard.list(lower, upper);
+    }
+
+    public ExportStream<T> exportStream(int batchSize) {
+        return leaderboard.exportStream(batchSize);
+    }
+
+    public ExportStream<T> exportStream(int batchSize, int readAhead) {
+        return leaderboard.exportStream(batchSize, readAhead);
+    }
+
+    public ExportStream<T> resumeExport(ExportCheckpoint checkpoint, int batchSize) {
+        return leaderboard.resumeExport(checkpoint, batchSize);
+    }
+
+    /**
+     * Creates a stream over all entries of the snapshot, which can be safely processed in parallel.
+     *
+     * @param batchSize the number of entries fetched per request
+     * @return a sequential stream of the entries, which may be turned parallel
+     * @see Leaderboard#stream(int)
+     */
+    public Stream<Entry<T>> stream(int batchSize) {
+        return leaderboard.stream(batchSize);
+    }
+
+    /**
+     * Deletes the temporary copy without blocking the server. Calling this method again has no effect.
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            transport.execute(new RedisCommand(Command.UNLINK, key)).join();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import java.util.List;
+
+/**
+ * A page of leaderboard entries with primitive {@code long} scores.
+ *
+ * @see LongLeaderboard for leaderboards returning these pages
+ */
+public final class LongEntryPage extends EntryPage<Long> {
+
+    private final long[] scores;
+
+    LongEntryPage(String[] ids, long[] scores, long firstRank) {
+        super(ids, firstRank);
+        this.scores = scores;
+    }
+
+    /**
+     * Decodes a flat {@code member, score, member, score...} reply into a page.
+     */
+    static LongEntryPage decode(List<Object> results, long firstRank, MemberCodec memberCodec) {
+        int size = results.size() / 2;
+        String[] ids = new String[size];
+        long[] scores = new long[size];
+        ReplyDecoder.forEachPair(results, (index, member, score) -> {
+            ids[index] = memberCodec.decode(member);
+            scores[index] = Math.round(ReplyDecoder.parseScore(score));
+        });
+        return new LongEntryPage(ids, scores, firstRank);
+    }
+
+    public long score(int index) {
+        return scores[index];
+    }
+
+    /**
+     * Returns the scores of this page.
+     *
+     * @return the backing array of scores, which must not be modified
+     */
+    public long[] scores() {
+        return scores;
+    }
+
+    @Override
+    public Long boxedScore(int index) {
+        return scores[index];
+    }
+}
@@ -0,0 +1,126 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts member identifiers to and from the bytes stored in the Redis sorted set.
+ * <p>
+ * Shorter member bytes reduce the memory used per entry, in steps of the allocator size classes.
+ * Leaderboards whose identifiers are decimal {@code long} numbers can store them as binary instead
+ * of text:
+ * <ul>
+ *   <li>{@link #UTF8} - the identifier text as UTF-8, compatible with any identifier (default)</li>
+ *   <li>{@link #FIXED_64} - 8 bytes big-endian with the sign bit flipped, so equal scores keep numeric member order</li>
+ *   <li>{@link #VARINT} - zig-zag LEB128, 1 to 10 bytes depending on the magnitude of the number</li>
+ * </ul>
+ * The codec is part of the stored data: a leaderboard must always be read with the codec it was
+ * written with. The numeric codecs return identifiers in canonical form, so {@code "007"} is read
+ * back as {@code "7"}.
+ * </p>
+ *
+ * @see LeaderboardOptions#withMemberCodec(MemberCodec) for selecting a codec
+ */
+public interface MemberCodec {
+
+    /**
+     * Stores identifiers as UTF-8 text.
+     */
+    MemberCodec UTF8 = new MemberCodec() {
+        @Override
+        public byte[] encode(String id) {
+            return id.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(byte[] member) {
+            return new String(member, StandardCharsets.UTF_8);
+        }
+    };
+
+    /**
+     * Stores decimal {@code long} identifiers as 8 big-endian bytes.
+     */
+    MemberCodec FIXED_64 = new MemberCodec() {
+        @Override
+        public byte[] encode(String id) {
+            long value = parseId(id) ^ Long.MIN_VALUE;
+            byte[] member = new byte[Long.BYTES];
+            for (int i = Long.BYTES - 1; i >= 0; i--) {
+                member[i] = (byte) value;
+                value >>>= 8;
+            }
+            return member;
+        }
+
+        @Override
+        public String decode(byte[] member) {
+            if (member.length != Long.BYTES) {
+                throw new IllegalArgumentException("Expected an 8-byte member, got " + member.length + " bytes");
+            }
+            long value = 0;
+            for (byte b : member) {
+                value = (value << 8) | (b & 0xFF);
+            }
+            return Long.toString(value ^ Long.MIN_VALUE);
+        }
+    };
+
+    /**
+     * Stores decimal {@code long} identifiers as zig-zag encoded variable-length integers.
+     */
+    MemberCodec VARINT = new MemberCodec() {
+        @Override
+        public byte[] encode(String id) {
+            long id64 = parseId(id);
+            long value = (id64 << 1) ^ (id64 >> 63);
+            int length = (64 - Long.numberOfLeadingZeros(value | 1) + 6) / 7;
+            byte[] member = new byte[length];
+            for (int i = 0; i < length - 1; i++) {
+                member[i] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            member[length - 1] = (byte) value;
+            return member;
+        }
+
+        @Override
+        public String decode(byte[] member) {
+            long value = 0;
+            int shift = 0;
+            for (byte b : member) {
+                if (shift > 63) {
+                    throw new IllegalArgumentException("Varint member is longer than 10 bytes");
+                }
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            }
+            return Long.toString((value >>> 1) ^ -(value & 1));
+        }
+    };
+
+    /**
+     * Encodes an identifier into the member bytes stored in Redis.
+     *
+     * @param id the identifier
+     * @return the member bytes
+     * @throws IllegalArgumentException if the identifier cannot be represented by this codec
+     */
+    byte[] encode(String id);
+
+    /**
+     * Decodes member bytes read from Redis into an identifier.
+     *
+     * @param member the member bytes
+     * @return the identifier
+     * @throws IllegalArgumentException if the bytes were not produced by this codec
+     */
+    String decode(byte[] member);
+
+    private static long parseId(String id) {
+        try {
+            return Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Member id is not a decimal long: " + id, e);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import redis.clients.jedis.Protocol.Command;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * A set of periodic leaderboards over different cycles that receive the same updates.
+ * <p>
+ * Keeping hourly, daily, weekly and monthly versions of one board with separate
+ * {@link PeriodicLeaderboard} instances costs one round trip per cycle for every update. This class
+ * resolves the current leaderboard of every cycle from a single point in time and applies an update
+ * to all of them in one MULTI/EXEC block sent as a single pipeline, so all cycles see the update
+ * together or not at all, including the top-N trim of limited leaderboards.
+ * </p>
+ * <p>
+ * An all-time board can be included as a {@link CycleFunction} returning a constant key.
+ * Cycles that need their own settings, such as a different {@link RetentionOptions} for hourly
+ * and daily boards, are given as one {@link PeriodicLeaderboardOptions} per cycle. Closing the
+ * multi-cycle leaderboard closes the leaderboards of all cycles, stopping their retention sweeps.
+ * </p>
+ *
+ * @param <T> the numeric type used for scores (e.g., Integer, Double, Long)
+ *
+ * @see PeriodicLeaderboard for reading the leaderboards of a single cycle
+ */
+public class MultiCycleLeaderboard<T extends Number> implements AutoCloseable {
+
+    private final List<PeriodicLeaderboard<T>> cycles;
+    private final RedisExtension redisExtension;
+    private final NowFunction now;
+
+    /**
+     * Creates a multi-cycle leaderboard using {@link LocalDateTime#now()} as the time provider.
+     *
+     * @param redisExtension the Redis connection and script management extension
+     * @param baseKey the base Redis key prefix shared by the leaderboards of all cycles
+     * @param clazz the class type for score values
+     * @param leaderboardOptions the configuration options for the individual leaderboards
+     * @param cycles the cycle definitions, each a {@link DefaultCycles} value or a {@link CycleFunction}
+     */
+    public MultiCycleLeaderboard(RedisExtension redisExtension, String baseKey, Class<T> clazz,
+                                 LeaderboardOptions leaderboardOptions, List<?> cycles) {
+        this(redisExtension, baseKey, clazz, leaderboardOptions, cycles, LocalDateTime::now);
+    }
+
+    /**
+     * Creates a multi-cycle leaderboard.
+     *
+     * @param redisExtension the Redis connection and script management extension
+     * @param baseKey the base Redis key prefix shared by the leaderboards of all cycles
+     * @param clazz the class type for score values
+     * @param leaderboardOptions the configuration options for the individual leaderboards
+     * @param cycles the cycle definitions, each a {@link DefaultCycles} value or a {@link CycleFunction}
+     * @param now the function to provide current time
+     */
+    public MultiCycleLeaderboard(RedisExtension redisExtension, String baseKey, Class<T> clazz,
+                                 LeaderboardOptions leaderboardOptions, List<?> cycles, NowFunction now) {
+        this(redisExtension, baseKey, clazz, cycleOptions(leaderboardOptions, cycles, now));
+    }
+
+    /**
+     * Creates a multi-cycle leaderboard with separate options for every cycle.
+     * <p>
+     * The current cycles are resolved from a single point in time, given by the time provider of the first options.
+     * </p>
+     *
+     * @param redisExtension the Redis connection and script management extension
+     * @param baseKey the base Redis key prefix shared by the leaderboards of all cycles
+     * @param clazz the class type for score values
+     * @param cycleOptions the options of each cycle, in the order the cycles are updated
+     */
+    public MultiCycleLeaderboard(RedisExtension redisExtension, String baseKey, Class<T> clazz,
+                                 List<PeriodicLeaderboardOptions> cycleOptions) {
+        if (cycleOptions.isEmpty()) {
+            throw new IllegalArgumentException("At least one cycle is required");
+        }
+        List<PeriodicLeaderboard<T>> periodicLeaderboards = new ArrayList<>(cycleOptions.size());
+        for (PeriodicLeaderboardOptions options : cycleOptions) {
+            if (!(options.cycle() instanceof DefaultCycles) && !(options.cycle() instanceof CycleFunction)) {
+                throw new IllegalArgumentException("Invalid cycle type: " + options.cycle());
+            }
+            periodicLeaderboards.add(new PeriodicLeaderboard<>(redisExtension, baseKey, clazz, options));
+        }
+        this.cycles = Collections.unmodifiableList(periodicLeaderboards);
+        this.redisExtension = redisExtension;
+        this.now = cycleOptions.get(0).now();
+    }
+
+    private static List<PeriodicLeaderboardOptions> cycleOptions(LeaderboardOptions leaderboardOptions, List<?> cycles, NowFunction now) {
+        List<PeriodicLeaderboardOptions> options = new ArrayList<>(cycles.size());
+        for (Object cycle : cycles) {
+            options.add(new PeriodicLeaderboardOptions(leaderboardOptions, cycle, now));
+        }
+        return options;
+    }
+
+    /**
+     * Returns the periodic leaderboards of all cycles, in the order the cycles were given.
+     *
+     * @return the periodic leaderboard of each cycle
+     */
+    public List<PeriodicLeaderboard<T>> getCycles() {
+        return cycles;
+    }
+
+    /**
+     * Returns the leaderboard of every cycle that contains the given time.
+     *
+     * @param time the point in time
+     * @return the leaderboard of each cycle, in the order the cycles were given
+     */
+    public List<Leaderboard<T>> getLeaderboardsAt(LocalDateTime time) {
+        List<Leaderboard<T>> leaderboards = new ArrayList<>(cycles.size());
+        for (PeriodicLeaderboard<T> cycle : cycles) {
+            leaderboards.add(cycle.getLeaderboardAt(time));
+        }
+        return leaderboards;
+    }
+
+    public List<Leaderboard<T>> getLeaderboardsNow() {
+        return getLeaderboardsAt(now.get());
+    }
+
+    public CompletableFuture<Void> updateOne(String id, T value) {
+        return update(Collections.singletonList(new EntryUpdateQuery<>(id, value)), null);
+    }
+
+    public CompletableFuture<Void> updateOne(String id, T value, UpdatePolicy updatePolicy) {
+        return update(Collections.singletonList(new EntryUpdateQuery<>(id, value)), updatePolicy);
+    }
+
+    public CompletableFuture<Void> update(List<EntryUpdateQuery<T>> entries) {
+        return update(entries, null);
+    }
+
+    /**
+     * Applies the updates to the current leaderboard of every cycle in a single round trip.
+     *
+     * @param entries the updates to apply
+     * @param updatePolicy the update policy to use, or {@code null} for the leaderboard default
+     * @return a future completed once all cycles have been updated
+     */
+    public CompletableFuture<Void> update(List<EntryUpdateQuery<T>> entries, UpdatePolicy updatePolicy) {
+        List<Leaderboard<T>> leaderboards = getLeaderboardsNow();
+        List<RedisCommand> transaction = new ArrayList<>(2 + leaderboards.size() * (entries.size() + 1));
+        transaction.add(new RedisCommand(Command.MULTI));
+        for (Leaderboard<T> leaderboard : leaderboards) {
+            leaderboard.appendUpdates(entries, updatePolicy, transaction);
+        }
+        transaction.add(new RedisCommand(Command.EXEC));
+
+        return leaderboards.get(0).executeWithRetry(() -> redisExtension.getTransport().pipeline(transaction)
+                .handle((results, error) -> {
+                    Object exec = error == null ? results.get(results.size() - 1) : error;
+                    if (exec instanceof Throwable failure) {
+                        throw new RuntimeException("Failed to update leaderboard entries",
+                                failure instanceof CompletionException && failure.getCause() != null ?
+                                        failure.getCause() : failure);
+                    }
+                    return null;
+                }), 3);
+    }
+
+    /**
+     * Stops the background sweeps of expired cycles of all cycles, see {@link PeriodicLeaderboard#close()}.
+     */
+    @Override
+    public void close() {
+        for (PeriodicLeaderboard<T> cycle : cycles) {
+            cycle.close();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Keeps an immutable snapshot of the top entries of one leaderboard.
+ * <p>
+ * Reads of a fresh snapshot only touch a volatile field. A stale or missing snapshot is reloaded
+ * once, with concurrent readers sharing the same in-flight load. The background refresh is started
+ * by the first read and stops itself after a refresh interval without reads, so idle leaderboards
+ * do not keep polling Redis.
+ * </p>
+ * <p>
+ * When the extension has an {@link InvalidationChannel}, the cache registers for changes of the
+ * leaderboard key instead of polling: a snapshot stays valid until the key changes, and loads that
+ * started before a change are not installed. The registration is kept until the cache has not been
+ * read for {@link NearCacheOptions#maxStaleness()}. While the channel cannot confirm delivery, for
+ * example while the subscriber reconnects, the cache polls and honors the staleness bound as usual.
+ * </p>
+ *
+ * @param <T> the numeric type of the leaderboard scores
+ */
+final class NearCache<T extends Number> {
+
+    private static final Logger log = LoggerFactory.getLogger(NearCache.class);
+
+    private record Snapshot<T extends Number>(List<Entry<T>> entries, long loadedAt) {
+    }
+
+    private record Load<T extends Number>(CompletableFuture<List<Entry<T>>> future, long generation) {
+    }
+
+    private final Supplier<CompletableFuture<List<Entry<T>>>> loader;
+    private final String key;
+    private final NearCacheOptions options;
+    private final RedisExtension redisExtension;
+
+    private volatile Snapshot<T> snapshot;
+    private volatile long lastAccess;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicReference<Load<T>> inFlight = new AtomicReference<>();
+    private volatile ScheduledFuture<?> refreshTask;
+    private volatile InvalidationChannel.Registration registration;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong refreshFailures = new AtomicLong();
+    private final AtomicLong lastRefreshNanos = new AtomicLong();
+    private final AtomicLong totalRefreshNanos = new AtomicLong();
+
+    NearCache(Supplier<CompletableFuture<List<Entry<T>>>> loader, String key, NearCacheOptions options, RedisExtension redisExtension) {
+        this.loader = loader;
+        this.key = key;
+        this.options = options;
+        this.redisExtension = redisExtension;
+    }
+
+    int size() {
+        return options.size();
+    }
+
+    /**
+     * Returns the cached top entries, loading them first if the snapshot is missing or too old.
+     */
+    CompletableFuture<List<Entry<T>>> entries() {
+        lastAccess = System.nanoTime();
+        if (refreshTask == null) {
+            startRefreshing();
+        }
+
+        Snapshot<T> current = snapshot;
+        if (current != null && (invalidationActive() || System.nanoTime() - current.loadedAt() <= options.maxStaleness().toNanos())) {
+            hits.increment();
+            return CompletableFuture.completedFuture(current.entries());
+        }
+        misses.increment();
+        return refresh();
+    }
+
+    /**
+     * Returns whether changes of the key are pushed right now, so the snapshot stays valid until one arrives.
+     */
+    private boolean invalidationActive() {
+        InvalidationChannel.Registration current = registration;
+        return current != null && current.isActive();
+    }
+
+    /**
+     * Reloads the snapshot, joining the load already in flight unless the key changed after it started.
+     */
+    CompletableFuture<List<Entry<T>>> refresh() {
+        while (true) {
+            Load<T> running = inFlight.get();
+            long current = generation.get();
+            if (running != null && running.generation() == current) {
+                return running.future();
+            }
+            Load<T> load = new Load<>(new CompletableFuture<>(), current);
+            if (inFlight.compareAndSet(running, load)) {
+                load(load);
+                return load.future();
+            }
+        }
+    }
+
+    /**
+     * Drops the snapshot after the leaderboard key changed.
+     */
+    void invalidate() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    NearCacheStats stats() {
+        long count = refreshes.get();
+        return new NearCacheStats(hits.sum(), misses.sum(), count, refreshFailures.get(),
+                Duration.ofNanos(lastRefreshNanos.get()),
+                Duration.ofNanos(count == 0 ? 0 : totalRefreshNanos.get() / count));
+    }
+
+    private void load(Load<T> load) {
+        long start = System.nanoTime();
+        CompletableFuture<List<Entry<T>>> future;
+        try {
+            future = loader.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+
+        future.whenComplete((entries, error) -> {
+            long now = System.nanoTime();
+            inFlight.compareAndSet(load, null);
+            if (error != null) {
+                refreshFailures.incrementAndGet();
+                load.future().completeExceptionally(error);
+                return;
+            }
+            List<Entry<T>> loaded = List.copyOf(entries);
+            if (generation.get() == load.generation()) {
+                snapshot = new Snapshot<>(loaded, start);
+            }
+            lastRefreshNanos.set(now - start);
+            totalRefreshNanos.addAndGet(now - start);
+            refreshes.incrementAndGet();
+            load.future().complete(loaded);
+        });
+    }
+
+    private synchronized void startRefreshing() {
+        if (refreshTask == null) {
+            registerForInvalidation();
+            long interval = options.refreshInterval().toNanos();
+            refreshTask = redisExtension.getScheduler().scheduleWithFixedDelay(this::backgroundRefresh, interval, interval, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private synchronized void backgroundRefresh() {
+        long idleLimit = (registration != null ? options.maxStaleness() : options.refreshInterval()).toNanos();
+        if (System.nanoTime() - lastAccess > idleLimit) {
+            refreshTask.cancel(false);
+            refreshTask = null;
+            if (registration != null) {
+                registration.close();
+                registration = null;
+            }
+            return;
+        }
+        if (registration == null) {
+            registerForInvalidation();
+        }
+        if (invalidationActive()) {
+            return;
+        }
+        refresh().whenComplete((ignored, error) -> {
+            if (error != null) {
+                log.warn("Failed to refresh leaderboard near-cache", error);
+            }
+        });
+    }
+
+    /**
+     * Starts listening for changes of the key if invalidation is enabled. Must be called while holding the lock.
+     */
+    private void registerForInvalidation() {
+        InvalidationChannel channel = redisExtension.getInvalidationChannel();
+        if (channel != null) {
+            // The key may have changed while nobody was listening
+            invalidate();
+            registration = channel.register(key, this::invalidate);
+        }
+    }
+}
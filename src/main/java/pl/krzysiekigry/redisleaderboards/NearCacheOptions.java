@@ -0,0 +1,57 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the in-process near-cache for the top of a {@link Leaderboard}.
+ * <p>
+ * When the near-cache is enabled, the leaderboard keeps an immutable snapshot of its first
+ * {@code size} entries. {@link Leaderboard#top(int)} and {@link Leaderboard#at(long)} are answered
+ * from that snapshot whenever they fall within it and the snapshot is not older than
+ * {@code maxStaleness}. The snapshot is reloaded in the background every {@code refreshInterval}
+ * for as long as it keeps being read. Lists served from the snapshot are unmodifiable.
+ * </p>
+ * <p>
+ * If {@link RedisExtension#enableInvalidation()} has been called and the server delivers keyspace
+ * notifications, the snapshot is not polled and does not expire: it is dropped when the leaderboard
+ * key changes, so quiet leaderboards cost no Redis reads at all.
+ * </p>
+ *
+ * @param size the number of top entries kept in memory
+ * @param refreshInterval the time between background refreshes of the snapshot
+ * @param maxStaleness the age after which the snapshot is no longer served and a read waits for a refresh
+ *
+ * @see LeaderboardOptions#withNearCache(NearCacheOptions) for enabling the near-cache
+ * @see NearCacheStats for the counters of the near-cache
+ */
+public record NearCacheOptions(int size, Duration refreshInterval, Duration maxStaleness) {
+
+    /**
+     * Creates near-cache options, validating the parameters.
+     *
+     * @param size the number of top entries kept in memory
+     * @param refreshInterval the time between background refreshes of the snapshot
+     * @param maxStaleness the age after which the snapshot is no longer served
+     */
+    public NearCacheOptions {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        if (refreshInterval == null || refreshInterval.isNegative() || refreshInterval.isZero()) {
+            throw new IllegalArgumentException("refreshInterval must be positive");
+        }
+        if (maxStaleness == null || maxStaleness.compareTo(refreshInterval) < 0) {
+            throw new IllegalArgumentException("maxStaleness must not be shorter than refreshInterval");
+        }
+    }
+
+    /**
+     * Creates near-cache options that serve a snapshot for up to two refresh intervals.
+     *
+     * @param size the number of top entries kept in memory
+     * @param refreshInterval the time between background refreshes of the snapshot
+     */
+    public NearCacheOptions(int size, Duration refreshInterval) {
+        this(size, refreshInterval, refreshInterval == null ? null : refreshInterval.multipliedBy(2));
+    }
+}
@@ -0,0 +1,29 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import java.time.Duration;
+
+/**
+ * A point-in-time view of the counters of a leaderboard near-cache.
+ *
+ * @param hits the number of reads answered from the in-memory snapshot
+ * @param misses the number of reads within the cached range that had to wait for a refresh
+ * @param refreshes the number of completed snapshot loads
+ * @param refreshFailures the number of snapshot loads that failed
+ * @param lastRefreshLatency the round-trip time of the most recent snapshot load
+ * @param averageRefreshLatency the mean round-trip time of all completed snapshot loads
+ *
+ * @see Leaderboard#nearCacheStats() for reading the counters
+ */
+public record NearCacheStats(long hits, long misses, long refreshes, long refreshFailures,
+                             Duration lastRefreshLatency, Duration averageRefreshLatency) {
+
+    /**
+     * Returns the fraction of reads answered from memory.
+     *
+     * @return the hit rate between 0 and 1, or 0 if nothing has been read yet
+     */
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
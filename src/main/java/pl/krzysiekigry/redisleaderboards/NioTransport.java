@@ -0,0 +1,617 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Non-blocking {@link RedisTransport} speaking RESP2 over NIO asynchronous socket channels.
+ * <p>
+ * Commands from all callers are multiplexed over a small, fixed number of connections.
+ * Each connection writes queued commands with gathering writes and completes the pending
+ * futures in FIFO order straight from its reply decoder, so no thread is parked while a
+ * command is in flight. Broken connections are replaced transparently on the next call.
+ * </p>
+ * <p>
+ * A connection that does not connect, or does not answer its oldest in-flight command, within the
+ * configured timeout is considered stalled: it is closed and all of its pending futures fail with a
+ * {@link JedisConnectionException}, the same way as when the socket breaks. Replies are matched to
+ * commands by their order, so one late command cannot be failed on its own without failing the
+ * connection.
+ * </p>
+ * <p>
+ * Futures are completed on the channel group's I/O threads. Dependent stages attached to
+ * them must not block, otherwise they delay every other reply on the same connection.
+ * </p>
+ *
+ * @see JedisTransport for the blocking, pool-based alternative
+ */
+public class NioTransport implements RedisTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(NioTransport.class);
+
+    private static final Object INCOMPLETE = new Object();
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The default connect and command timeout, the same as the socket timeout of Jedis.
+     */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofMillis(Protocol.DEFAULT_TIMEOUT);
+
+    private final InetSocketAddress address;
+    private final byte[] password;
+    private final AtomicReferenceArray<Connection> connections;
+    private final AtomicInteger next = new AtomicInteger();
+    private final long timeoutNanos;
+    private final ScheduledExecutorService timeoutChecker;
+    private volatile boolean closed;
+
+    /**
+     * Creates a new transport with a single connection to the given server.
+     *
+     * @param host the Redis host
+     * @param port the Redis port
+     */
+    public NioTransport(String host, int port) {
+        this(host, port, 1);
+    }
+
+    /**
+     * Creates a new transport multiplexing commands over the given number of connections.
+     *
+     * @param host the Redis host
+     * @param port the Redis port
+     * @param connections the number of connections to open
+     */
+    public NioTransport(String host, int port, int connections) {
+        this(host, port, connections, null);
+    }
+
+    /**
+     * Creates a new transport authenticating every connection with the given password.
+     *
+     * @param host the Redis host
+     * @param port the Redis port
+     * @param connections the number of connections to open
+     * @param password the password sent with {@code AUTH}, or {@code null} to skip authentication
+     */
+    public NioTransport(String host, int port, int connections, String password) {
+        this(host, port, connections, password, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Creates a new transport failing the pending commands of connections that stall for longer
+     * than the given timeout.
+     *
+     * @param host the Redis host
+     * @param port the Redis port
+     * @param connections the number of connections to open
+     * @param password the password sent with {@code AUTH}, or {@code null} to skip authentication
+     * @param timeout how long a connection may take to connect or to answer its oldest in-flight
+     *                command, or {@link Duration#ZERO} to wait indefinitely
+     */
+    public NioTransport(String host, int port, int connections, String password, Duration timeout) {
+        if (connections < 1) {
+            throw new IllegalArgumentException("At least one connection is required");
+        }
+        if (timeout == null || timeout.isNegative()) {
+            throw new IllegalArgumentException("timeout must not be negative");
+        }
+        this.address = new InetSocketAddress(host, port);
+        this.password = password != null ? SafeEncoder.encode(password) : null;
+        this.timeoutNanos = timeout.toNanos();
+        this.connections = new AtomicReferenceArray<>(connections);
+        for (int i = 0; i < connections; i++) {
+            this.connections.set(i, new Connection());
+        }
+
+        if (timeoutNanos > 0) {
+            long checkInterval = Math.max(timeout.toMillis() / 4, 1);
+            timeoutChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "redis-leaderboards-nio-timeout");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timeoutChecker.scheduleAtFixedRate(this::checkTimeouts, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+        } else {
+            timeoutChecker = null;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Object> execute(RedisCommand command) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new JedisConnectionException("Transport is closed"));
+        }
+        Connection connection;
+        try {
+            connection = connection();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        connection.send(List.of(command), List.of(future));
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<List<Object>> pipeline(List<RedisCommand> commands) {
+        if (commands.isEmpty()) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+        if (closed) {
+            return CompletableFuture.failedFuture(new JedisConnectionException("Transport is closed"));
+        }
+
+        Connection connection;
+        try {
+            connection = connection();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        List<CompletableFuture<Object>> futures = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            futures.add(new CompletableFuture<>());
+        }
+        connection.send(commands, futures);
+
+        List<CompletableFuture<Object>> replies = new ArrayList<>(futures.size());
+        for (CompletableFuture<Object> future : futures) {
+            replies.add(future.handle((reply, error) -> {
+                if (error == null) {
+                    return reply;
+                }
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                if (cause instanceof JedisDataException) {
+                    return cause;
+                }
+                throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+            }));
+        }
+        return CompletableFuture.allOf(replies.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            List<Object> results = new ArrayList<>(replies.size());
+            for (CompletableFuture<Object> reply : replies) {
+                results.add(reply.join());
+            }
+            return results;
+        });
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (timeoutChecker != null) {
+            timeoutChecker.shutdownNow();
+        }
+        for (int i = 0; i < connections.length(); i++) {
+            connections.get(i).fail(new JedisConnectionException("Transport is closed"));
+        }
+    }
+
+    private Connection connection() {
+        int index = Math.floorMod(next.getAndIncrement(), connections.length());
+        Connection connection = connections.get(index);
+        if (connection.broken) {
+            Connection replacement = new Connection();
+            if (connections.compareAndSet(index, connection, replacement)) {
+                return replacement;
+            }
+            replacement.fail(new JedisConnectionException("Connection replaced concurrently"));
+            return connections.get(index);
+        }
+        return connection;
+    }
+
+    private void checkTimeouts() {
+        long now = System.nanoTime();
+        for (int i = 0; i < connections.length(); i++) {
+            connections.get(i).checkTimeout(now);
+        }
+    }
+
+    private final class Connection {
+
+        private final AsynchronousSocketChannel channel;
+        private final ArrayDeque<CompletableFuture<Object>> pending = new ArrayDeque<>();
+        private final ArrayDeque<ByteBuffer> outbound = new ArrayDeque<>();
+        private ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        /**
+         * The arrays of the reply being decoded whose elements have not all arrived yet, innermost first.
+         */
+        private final ArrayDeque<PartialArray> partialArrays = new ArrayDeque<>();
+        private boolean writing = true;
+        private boolean connected;
+        /**
+         * When the connection last made progress: when it started connecting, when a command was
+         * sent with nothing else in flight, or when the last reply arrived.
+         */
+        private long progressNanos = System.nanoTime();
+        private volatile boolean broken;
+        private volatile Throwable failure;
+
+        private Connection() {
+            try {
+                channel = AsynchronousSocketChannel.open();
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+            } catch (IOException e) {
+                throw new JedisConnectionException("Failed to open connection to " + address, e);
+            }
+
+            if (password != null) {
+                CompletableFuture<Object> auth = new CompletableFuture<>();
+                auth.whenComplete((reply, error) -> {
+                    if (error != null) {
+                        fail(error);
+                    }
+                });
+                send(List.of(new RedisCommand(Protocol.Command.AUTH, password)), List.of(auth));
+            }
+
+            try {
+                connect();
+            } catch (RuntimeException e) {
+                // For example an unresolved address, reported to the callers of this connection
+                fail(e);
+            }
+        }
+
+        private void connect() {
+            channel.connect(address, null, new CompletionHandler<Void, Void>() {
+                @Override
+                public void completed(Void result, Void attachment) {
+                    synchronized (Connection.this) {
+                        connected = true;
+                        progressNanos = System.nanoTime();
+                    }
+                    writeNext();
+                    read();
+                }
+
+                @Override
+                public void failed(Throwable error, Void attachment) {
+                    fail(error);
+                }
+            });
+        }
+
+        private void send(List<RedisCommand> commands, List<CompletableFuture<Object>> futures) {
+            ByteBuffer buffer = encode(commands);
+            boolean accepted = false;
+            boolean startWrite = false;
+            synchronized (this) {
+                if (!broken) {
+                    if (pending.isEmpty() && connected) {
+                        progressNanos = System.nanoTime();
+                    }
+                    pending.addAll(futures);
+                    outbound.add(buffer);
+                    accepted = true;
+                    startWrite = !writing;
+                    writing = true;
+                }
+            }
+            if (!accepted) {
+                JedisConnectionException error = new JedisConnectionException("Connection to " + address + " is closed", failure);
+                futures.forEach(future -> future.completeExceptionally(error));
+            } else if (startWrite) {
+                writeNext();
+            }
+        }
+
+        private void writeNext() {
+            ByteBuffer[] buffers;
+            synchronized (this) {
+                if (outbound.isEmpty() || broken) {
+                    writing = false;
+                    return;
+                }
+                buffers = outbound.toArray(new ByteBuffer[0]);
+                outbound.clear();
+            }
+            write(buffers);
+        }
+
+        private void write(ByteBuffer[] buffers) {
+            channel.write(buffers, 0, buffers.length, 0L, TimeUnit.MILLISECONDS, null, new CompletionHandler<Long, Void>() {
+                @Override
+                public void completed(Long written, Void attachment) {
+                    if (buffers[buffers.length - 1].hasRemaining()) {
+                        write(buffers);
+                    } else {
+                        writeNext();
+                    }
+                }
+
+                @Override
+                public void failed(Throwable error, Void attachment) {
+                    fail(error);
+                }
+            });
+        }
+
+        private void read() {
+            channel.read(readBuffer, null, new CompletionHandler<Integer, Void>() {
+                @Override
+                public void completed(Integer read, Void attachment) {
+                    if (read < 0) {
+                        fail(new JedisConnectionException("Unexpected end of stream from " + address));
+                        return;
+                    }
+                    try {
+                        decode();
+                    } catch (RuntimeException e) {
+                        fail(e);
+                        return;
+                    }
+                    read();
+                }
+
+                @Override
+                public void failed(Throwable error, Void attachment) {
+                    fail(error);
+                }
+            });
+        }
+
+        private void decode() {
+            ByteBuffer buffer = readBuffer;
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                int start = buffer.position();
+                Object element = parse(buffer);
+                if (element == INCOMPLETE) {
+                    buffer.position(start);
+                    break;
+                }
+                Object reply = assemble(element);
+                if (reply == INCOMPLETE) {
+                    continue;
+                }
+
+                CompletableFuture<Object> future;
+                synchronized (this) {
+                    future = pending.poll();
+                    progressNanos = System.nanoTime();
+                }
+                if (future == null) {
+                    throw new JedisConnectionException("Received a reply without a pending command");
+                }
+                if (reply instanceof JedisDataException error) {
+                    future.completeExceptionally(error);
+                } else {
+                    future.complete(reply);
+                }
+            }
+            buffer.compact();
+
+            if (!buffer.hasRemaining()) {
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                larger.put(buffer);
+                readBuffer = larger;
+            }
+        }
+
+        private void checkTimeout(long now) {
+            String stalled;
+            synchronized (this) {
+                if (broken || now - progressNanos <= timeoutNanos) {
+                    return;
+                }
+                if (!connected) {
+                    stalled = "Connecting to " + address + " timed out";
+                } else if (!pending.isEmpty()) {
+                    stalled = "Reply from " + address + " timed out";
+                } else {
+                    return;
+                }
+            }
+            fail(new JedisConnectionException(stalled, new SocketTimeoutException(
+                    "No progress for " + TimeUnit.NANOSECONDS.toMillis(now - progressNanos) + " ms")));
+        }
+
+        /**
+         * Adds a decoded element to the arrays in progress, returning the reply once it is complete.
+         */
+        private Object assemble(Object element) {
+            Object value = element;
+            while (true) {
+                if (value instanceof PartialArray array) {
+                    partialArrays.push(array);
+                    return INCOMPLETE;
+                }
+                PartialArray parent = partialArrays.peek();
+                if (parent == null) {
+                    return value;
+                }
+                parent.values.add(value);
+                if (parent.values.size() < parent.length) {
+                    return INCOMPLETE;
+                }
+                partialArrays.pop();
+                value = parent.values;
+            }
+        }
+
+        private void fail(Throwable cause) {
+            List<CompletableFuture<Object>> failed;
+            synchronized (this) {
+                if (!broken) {
+                    failure = cause;
+                }
+                broken = true;
+                failed = new ArrayList<>(pending);
+                pending.clear();
+                outbound.clear();
+            }
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // the connection is discarded anyway
+            }
+            if (failed.isEmpty()) {
+                return;
+            }
+
+            JedisConnectionException error = cause instanceof JedisConnectionException ?
+                    (JedisConnectionException) cause :
+                    new JedisConnectionException("Connection to " + address + " failed", cause);
+            if (!closed) {
+                log.warn("Redis connection to {} failed with {} commands in flight", address, failed.size(), cause);
+            }
+            failed.forEach(future -> future.completeExceptionally(error));
+        }
+    }
+
+    private static ByteBuffer encode(List<RedisCommand> commands) {
+        int size = 0;
+        for (RedisCommand command : commands) {
+            size += headerSize(command.args().length + 1) + bulkSize(command.command().getRaw());
+            for (byte[] arg : command.args()) {
+                size += bulkSize(arg);
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (RedisCommand command : commands) {
+            putHeader(buffer, (byte) '*', command.args().length + 1);
+            putBulk(buffer, command.command().getRaw());
+            for (byte[] arg : command.args()) {
+                putBulk(buffer, arg);
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static int headerSize(int value) {
+        return 1 + Integer.toString(value).length() + 2;
+    }
+
+    private static int bulkSize(byte[] value) {
+        return headerSize(value.length) + value.length + 2;
+    }
+
+    private static void putHeader(ByteBuffer buffer, byte type, int value) {
+        buffer.put(type);
+        String digits = Integer.toString(value);
+        for (int i = 0; i < digits.length(); i++) {
+            buffer.put((byte) digits.charAt(i));
+        }
+        buffer.put((byte) '\r').put((byte) '\n');
+    }
+
+    private static void putBulk(ByteBuffer buffer, byte[] value) {
+        putHeader(buffer, (byte) '$', value.length);
+        buffer.put(value).put((byte) '\r').put((byte) '\n');
+    }
+
+    /**
+     * An array reply whose header has been decoded, collecting its elements as they arrive.
+     */
+    private static final class PartialArray {
+        final List<Object> values;
+        final int length;
+
+        PartialArray(int length) {
+            this.values = new ArrayList<>(length);
+            this.length = length;
+        }
+    }
+
+    /**
+     * Parses one element starting at the buffer position, or returns {@link #INCOMPLETE} if the
+     * buffer does not hold all of its bytes yet. The header of a non-empty array is returned as a
+     * {@link PartialArray} and its elements are parsed one by one, so bytes of a large reply that
+     * has only partially arrived are not decoded again on the next read.
+     */
+    private static Object parse(ByteBuffer buffer) {
+        if (!buffer.hasRemaining()) {
+            return INCOMPLETE;
+        }
+        byte type = buffer.get();
+        int end = lineEnd(buffer);
+        if (end < 0) {
+            return INCOMPLETE;
+        }
+
+        switch (type) {
+            case '+':
+                return readLine(buffer, end);
+            case '-':
+                return new JedisDataException(SafeEncoder.encode(readLine(buffer, end)));
+            case ':':
+                return readLong(buffer, end);
+            case '$': {
+                int length = (int) readLong(buffer, end);
+                if (length < 0) {
+                    return null;
+                }
+                if (buffer.remaining() < length + 2) {
+                    return INCOMPLETE;
+                }
+                byte[] value = new byte[length];
+                buffer.get(value);
+                buffer.position(buffer.position() + 2);
+                return value;
+            }
+            case '*': {
+                int length = (int) readLong(buffer, end);
+                if (length < 0) {
+                    return null;
+                }
+                return length == 0 ? new ArrayList<>() : new PartialArray(length);
+            }
+            default:
+                throw new JedisConnectionException("Unknown reply type: " + (char) type);
+        }
+    }
+
+    private static int lineEnd(ByteBuffer buffer) {
+        for (int i = buffer.position(); i + 1 < buffer.limit(); i++) {
+            if (buffer.get(i) == '\r' && buffer.get(i + 1) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static byte[] readLine(ByteBuffer buffer, int end) {
+        byte[] line = new byte[end - buffer.position()];
+        buffer.get(line);
+        buffer.position(end + 2);
+        return line;
+    }
+
+    private static long readLong(ByteBuffer buffer, int end) {
+        boolean negative = buffer.get(buffer.position()) == '-';
+        long value = 0;
+        for (int i = buffer.position() + (negative ? 1 : 0); i < end; i++) {
+            value = value * 10 + (buffer.get(i) - '0');
+        }
+        buffer.position(end + 2);
+        return negative ? -value : value;
+    }
+}
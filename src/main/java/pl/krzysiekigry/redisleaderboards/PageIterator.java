@@ -0,0 +1,129 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.ToIntFunction;
+
+/**
+ * Iterates over a leaderboard in pages of consecutive ranks, reading ahead of the consumer.
+ * <p>
+ * Up to {@code readAhead} pages beyond the one being consumed are kept in flight. Missing pages
+ * are requested together in one pipeline, so the first fill costs a single round trip and the
+ * export afterwards proceeds at the throughput of Redis rather than one round trip per page.
+ * Pages requested past the end of the leaderboard come back empty and are discarded.
+ * </p>
+ * <p>
+ * The next page is awaited by {@link #hasNext()}, so a leaderboard whose size is a multiple of
+ * the batch size does not end with an empty page. Non-blocking consumers use {@link #nextAsync()}
+ * instead, which requests pages only when called.
+ * </p>
+ *
+ * @param <P> the page type
+ */
+final class PageIterator<P> implements Iterator<P> {
+
+    interface PageReader<P> {
+        CompletableFuture<List<P>> read(long firstRank, int batchSize, int pages);
+    }
+
+    private final PageReader<P> reader;
+    private final ToIntFunction<P> pageSize;
+    private final int batchSize;
+    private final int readAhead;
+    private final Deque<CompletableFuture<P>> inFlight = new ArrayDeque<>();
+
+    private long nextRank;
+    private boolean exhausted = false;
+    private boolean drained = false;
+    private P nextPage;
+
+    PageIterator(PageReader<P> reader, ToIntFunction<P> pageSize, int batchSize, int readAhead) {
+        this(reader, pageSize, batchSize, readAhead, 1);
+    }
+
+    PageIterator(PageReader<P> reader, ToIntFunction<P> pageSize, int batchSize, int readAhead, long firstRank) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        if (readAhead < 0) {
+            throw new IllegalArgumentException("readAhead must not be negative");
+        }
+        this.reader = reader;
+        this.pageSize = pageSize;
+        this.batchSize = batchSize;
+        this.readAhead = readAhead;
+        this.nextRank = firstRank;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextPage == null && !drained) {
+            try {
+                nextPage = nextAsync().join();
+            } catch (CompletionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+            drained = nextPage == null;
+        }
+        return nextPage != null;
+    }
+
+    @Override
+    public P next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        P page = nextPage;
+        nextPage = null;
+        return page;
+    }
+
+    /**
+     * Returns the next page without blocking.
+     * <p>
+     * Calls may be made before the previous page has arrived; pages are still delivered in order.
+     * </p>
+     *
+     * @return a future completed with the next page, or with {@code null} after the last page
+     */
+    synchronized CompletableFuture<P> nextAsync() {
+        fill();
+        CompletableFuture<P> page = inFlight.poll();
+        if (page == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return page.thenApply(result -> {
+            int size = pageSize.applyAsInt(result);
+            if (size < batchSize) {
+                markExhausted();
+            }
+            return size == 0 ? null : result;
+        });
+    }
+
+    private synchronized void markExhausted() {
+        exhausted = true;
+        inFlight.clear();
+    }
+
+    /**
+     * Requests the pages missing from the read-ahead window, plus the one about to be taken, in one pipeline.
+     */
+    private void fill() {
+        int missing = readAhead + 1 - inFlight.size();
+        if (exhausted || missing <= 0) {
+            return;
+        }
+        CompletableFuture<List<P>> pages = reader.read(nextRank, batchSize, missing);
+        for (int i = 0; i < missing; i++) {
+            int index = i;
+            inFlight.add(pages.thenApply(list -> list.get(index)));
+        }
+        nextRank += (long) missing * batchSize;
+    }
+}
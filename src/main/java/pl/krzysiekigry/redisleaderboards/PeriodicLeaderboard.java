@@ -1,11 +1,35 @@
 package pl.krzysiekigry.redisleaderboards;
 
-import redis.clients.jedis.Jedis;
-import redis.clients.jedis.params.ScanParams;
-import redis.clients.jedis.resps.ScanResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Protocol.Command;
+import redis.clients.jedis.Protocol.Keyword;
+import redis.clients.jedis.util.SafeEncoder;
 
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.*;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.time.temporal.WeekFields;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * A time-based leaderboard system that automatically creates separate leaderboards for different time cycles.
@@ -18,11 +42,26 @@ import java.util.*;
  * Key features include:
  * <ul>
  *   <li>Automatic time-based key generation using predefined or custom cycles</li>
- *   <li>Efficient leaderboard instance caching with LRU eviction</li>
+ *   <li>Thread-safe, bounded leaderboard instance caching with frequency-aware eviction</li>
+ *   <li>Memoization of the current cycle until its boundary passes for {@link DefaultCycles}</li>
  *   <li>Support for both {@link DefaultCycles} and custom {@link CycleFunction} implementations</li>
- *   <li>Discovery of existing time periods through key scanning</li>
+ *   <li>A registry of written cycles for listing, ranging and counting them without scanning the keyspace</li>
+ *   <li>Optional retention expiring past cycles at their boundaries, see {@link RetentionOptions}</li>
  *   <li>Configurable time providers for testing and custom scenarios</li>
  * </ul>
+ * <p>
+ * Every write also records its cycle key in the registry, a sorted set stored under
+ * {@code baseKey#cycles:<cycle>} and scored by the start of the cycle (local time as epoch seconds), in the
+ * same {@code MULTI/EXEC} block as the write itself. The registry is scoped to the cycle, for example
+ * {@code baseKey#cycles:hourly}, so periodic leaderboards of different cycles may share a base key;
+ * all custom {@link CycleFunction} cycles of a base key share {@code baseKey#cycles:custom}.
+ * Cycles written by versions without the registry are added to it once per deployment: the first
+ * registry read or sweep of a base key and cycle scans the keyspace, see {@link #rebuildRegistry()}.
+ * </p>
+ * <p>
+ * With retention enabled a background sweep runs on the scheduler of the {@link RedisExtension}
+ * until {@link #close()} is called.
+ * </p>
  * 
  * @param <T> the numeric type used for scores (e.g., Integer, Double, Long)
  * 
@@ -31,34 +70,58 @@ import java.util.*;
  * @see CycleFunction for custom cycle implementations
  * @see Leaderboard for individual leaderboard operations
  */
-public class PeriodicLeaderboard<T extends Number> {
+public class PeriodicLeaderboard<T extends Number> implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(PeriodicLeaderboard.class);
 
     private static final Map<DefaultCycles, CycleFunction> CYCLE_FUNCTIONS = new EnumMap<>(DefaultCycles.class);
 
     static {
-        CYCLE_FUNCTIONS.put(DefaultCycles.YEARLY, time -> String.format("y%d", time.getYear()));
-        CYCLE_FUNCTIONS.put(DefaultCycles.WEEKLY, time -> String.format("w%04d", time.get(java.time.temporal.WeekFields.ISO.weekOfWeekBasedYear())));
-        CYCLE_FUNCTIONS.put(DefaultCycles.MONTHLY, time -> String.format("%s-m%02d",
-                CYCLE_FUNCTIONS.get(DefaultCycles.YEARLY).apply(time), time.getMonthValue()));
-        CYCLE_FUNCTIONS.put(DefaultCycles.DAILY, time -> String.format("%s-d%02d",
-                CYCLE_FUNCTIONS.get(DefaultCycles.MONTHLY).apply(time), time.getDayOfMonth()));
-        CYCLE_FUNCTIONS.put(DefaultCycles.HOURLY, time -> String.format("%s-h%02d",
-                CYCLE_FUNCTIONS.get(DefaultCycles.DAILY).apply(time), time.getHour()));
-        CYCLE_FUNCTIONS.put(DefaultCycles.MINUTE, time -> String.format("%s-m%02d",
-                CYCLE_FUNCTIONS.get(DefaultCycles.HOURLY).apply(time), time.getMinute()));
+        CYCLE_FUNCTIONS.put(DefaultCycles.YEARLY, time -> appendYear(new StringBuilder(5), time).toString());
+        CYCLE_FUNCTIONS.put(DefaultCycles.WEEKLY, time -> appendPadded(new StringBuilder(5).append('w'),
+                time.get(WeekFields.ISO.weekOfWeekBasedYear()), 4).toString());
+        CYCLE_FUNCTIONS.put(DefaultCycles.MONTHLY, time -> appendMonth(new StringBuilder(9), time).toString());
+        CYCLE_FUNCTIONS.put(DefaultCycles.DAILY, time -> appendDay(new StringBuilder(13), time).toString());
+        CYCLE_FUNCTIONS.put(DefaultCycles.HOURLY, time -> appendHour(new StringBuilder(17), time).toString());
+        CYCLE_FUNCTIONS.put(DefaultCycles.MINUTE, time -> appendPadded(appendHour(new StringBuilder(21), time).append("-m"),
+                time.getMinute(), 2).toString());
+    }
+
+    private static final String REGISTRY_INFIX = "#cycles:";
+    private static final String CUSTOM_REGISTRY = "custom";
+    private static final int SWEEP_BATCH_SIZE = 100;
+    private static final String SEEDED_SUFFIX = ":seeded";
+    private static final Map<DefaultCycles, Pattern> CYCLE_KEYS = new EnumMap<>(Map.of(
+            DefaultCycles.YEARLY, Pattern.compile("y\\d{4}"),
+            DefaultCycles.WEEKLY, Pattern.compile("w\\d{4}"),
+            DefaultCycles.MONTHLY, Pattern.compile("y\\d{4}-m\\d{2}"),
+            DefaultCycles.DAILY, Pattern.compile("y\\d{4}-m\\d{2}-d\\d{2}"),
+            DefaultCycles.HOURLY, Pattern.compile("y\\d{4}-m\\d{2}-d\\d{2}-h\\d{2}"),
+            DefaultCycles.MINUTE, Pattern.compile("y\\d{4}-m\\d{2}-d\\d{2}-h\\d{2}-m\\d{2}")));
+    private static final Pattern DEFAULT_CYCLE_KEY = Pattern.compile("y(\\d{4})(?:-m(\\d{2})(?:-d(\\d{2})(?:-h(\\d{2})(?:-m(\\d{2}))?)?)?)?");
+
+    /**
+     * The leaderboard of the cycle that was current last time, valid for times in {@code [start, end)}.
+     */
+    private record CurrentCycle<T extends Number>(LocalDateTime start, LocalDateTime end, String key, Leaderboard<T> leaderboard) {
+        boolean contains(LocalDateTime time) {
+            return time.isBefore(end) && !time.isBefore(start);
+        }
     }
 
     private final RedisExtension redisExtension;
     private final String baseKey;
+    private final byte[] keyPrefix;
+    private final byte[] scanPattern;
+    private final byte[] registryKey;
+    private final byte[] seededKey;
+    private volatile boolean seeded;
     private final Class<T> clazz;
     private final PeriodicLeaderboardOptions options;
+    private final AtomicReference<CurrentCycle<T>> currentCycle = new AtomicReference<>();
 
-    private final Map<String, Leaderboard<T>> leaderboards = new LinkedHashMap<String, Leaderboard<T>>(100, 0.75f, true) {
-        @Override
-        protected boolean removeEldestEntry(Map.Entry<String, Leaderboard<T>> eldest) {
-            return size() > 100;
-        }
-    };
+    private final LeaderboardCache<Leaderboard<T>> leaderboards;
+    private final ScheduledFuture<?> sweeper;
 
     /**
      * Creates a new periodic leaderboard with the specified configuration.
@@ -71,11 +134,36 @@ public class PeriodicLeaderboard<T extends Number> {
     public PeriodicLeaderboard(RedisExtension redisExtension, String baseKey, Class<T> clazz, PeriodicLeaderboardOptions options) {
         this.redisExtension = redisExtension;
         this.baseKey = baseKey;
+        this.keyPrefix = SafeEncoder.encode(baseKey + ":");
+        this.scanPattern = SafeEncoder.encode(baseKey + ":*");
+        this.registryKey = SafeEncoder.encode(baseKey + REGISTRY_INFIX + registryName(options.cycle()));
+        this.seededKey = SafeEncoder.encode(baseKey + REGISTRY_INFIX + registryName(options.cycle()) + SEEDED_SUFFIX);
         this.clazz = clazz;
         this.options = options;
+        // The memo must not outlive the cached instance, or a lookup by key would create a second one
+        this.leaderboards = new LeaderboardCache<>(options.cacheCapacity(), (key, evicted) -> {
+            CurrentCycle<T> cycle = currentCycle.get();
+            if (cycle != null && cycle.leaderboard() == evicted) {
+                currentCycle.compareAndSet(cycle, null);
+            }
+        });
+        if (options.retention() != null) {
+            long interval = options.retention().sweepInterval().toNanos();
+            this.sweeper = redisExtension.getScheduler().scheduleWithFixedDelay(this::sweepQuietly, interval, interval, TimeUnit.NANOSECONDS);
+        } else {
+            this.sweeper = null;
+        }
     }
 
     public String getKey(LocalDateTime time) {
+        CurrentCycle<T> cycle = currentCycle.get();
+        if (cycle != null && cycle.contains(time)) {
+            return cycle.key();
+        }
+        return computeKey(time);
+    }
+
+    private String computeKey(LocalDateTime time) {
         if (options.cycle() instanceof DefaultCycles) {
             return CYCLE_FUNCTIONS.get((DefaultCycles) options.cycle()).apply(time);
         } else if (options.cycle() instanceof CycleFunction) {
@@ -84,25 +172,151 @@ public class PeriodicLeaderboard<T extends Number> {
         throw new IllegalStateException("Invalid cycle type");
     }
 
+    /**
+     * Returns the leaderboard of the given cycle key.
+     * <p>
+     * Instances are cached in a bounded concurrent cache, so concurrent lookups of the same key
+     * share one {@link Leaderboard}. This method is safe to call from any thread.
+     * </p>
+     *
+     * @param key the cycle key, as returned by {@link #getKey(LocalDateTime)}
+     * @return the leaderboard of the cycle
+     */
     public Leaderboard<T> getLeaderboard(String key) {
-        String finalKey = baseKey + ":" + key;
+        if (options.cycle() == DefaultCycles.WEEKLY) {
+            // Weekly keys recur every year, so the start they stand for moves with the current time
+            return registered(key, parseCycleStart(key));
+        }
+        return leaderboards.get(key, k -> createLeaderboard(k, parseCycleStart(k)));
+    }
 
-        Leaderboard<T> lb = leaderboards.get(finalKey);
-        if (lb != null) {
-            return lb;
+    /**
+     * Returns the cached leaderboard of the key, registered for the cycle starting at the given time.
+     */
+    private Leaderboard<T> registered(String key, LocalDateTime start) {
+        Leaderboard<T> leaderboard = leaderboards.get(key, k -> createLeaderboard(k, start));
+        if (leaderboard.cycleRegistration().start() != start.toEpochSecond(ZoneOffset.UTC)) {
+            leaderboard.setCycleRegistration(cycleRegistration(leaderboard.keyBytes(), key, start));
         }
+        return leaderboard;
+    }
+
+    private Leaderboard<T> createLeaderboard(String key, LocalDateTime start) {
+        byte[] leaderboardKey = concat(keyPrefix, SafeEncoder.encode(key));
+        Leaderboard<T> leaderboard = new Leaderboard<>(redisExtension, leaderboardKey, clazz, options.leaderboardOptions());
+        leaderboard.setCycleRegistration(cycleRegistration(leaderboardKey, key, start));
+        return leaderboard;
+    }
 
-        if (leaderboards.size() > 100) {
-            leaderboards.clear();
+    private Leaderboard.CycleRegistration cycleRegistration(byte[] leaderboardKey, String key, LocalDateTime start) {
+        byte[] member = SafeEncoder.encode(key);
+        long startScore = start.toEpochSecond(ZoneOffset.UTC);
+        byte[] score = Protocol.toByteArray(startScore);
+        RedisCommand registration;
+        if (options.cycle() instanceof DefaultCycles) {
+            registration = new RedisCommand(Command.ZADD, registryKey, score, member);
+        } else {
+            // Custom keys are first registered at the time they were resolved for; LT keeps
+            // the earliest of those times, which is the closest known to the real start
+            registration = redisExtension.isServerVersionAtLeast(6, 2)
+                    ? new RedisCommand(Command.ZADD, registryKey, Keyword.LT.getRaw(), score, member)
+                    : new RedisCommand(Command.ZADD, registryKey, Keyword.NX.getRaw(), score, member);
         }
 
-        lb = new Leaderboard<>(redisExtension, finalKey, this.clazz, options.leaderboardOptions());
-        leaderboards.put(finalKey, lb);
-        return lb;
+        List<RedisCommand> onWrite;
+        if (options.retention() != null) {
+            // The expiry only depends on the cycle, so repeating it on every write keeps the first one
+            // Boundaries are in the time of the NowFunction, whatever zone its clock runs in, so the
+            // expiry is the distance from its current time to the boundary, added to the epoch time
+            LocalDateTime expiry = shiftCycles((DefaultCycles) options.cycle(), start, options.retention().retainedCycles() + 1);
+            long expireAt = System.currentTimeMillis() + Duration.between(options.now().get(), expiry).toMillis();
+            onWrite = List.of(registration, new RedisCommand(Command.PEXPIREAT, leaderboardKey, Protocol.toByteArray(expireAt)));
+        } else {
+            onWrite = List.of(registration);
+        }
+        return new Leaderboard.CycleRegistration(startScore, onWrite, new RedisCommand(Command.ZREM, registryKey, member));
     }
 
+    /**
+     * Returns the start of the cycle a key was formatted from, or the current time for custom cycles.
+     * {@link DefaultCycles#WEEKLY} keys carry no year and stand for the latest such week not after the current time.
+     */
+    private LocalDateTime parseCycleStart(String key) {
+        if (options.cycle() == DefaultCycles.WEEKLY) {
+            LocalDateTime now = options.now().get();
+            try {
+                int week = Integer.parseInt(key.substring(1));
+                LocalDateTime start = cycleStart(DefaultCycles.WEEKLY, now.with(WeekFields.ISO.weekOfWeekBasedYear(), week));
+                return start.isAfter(now)
+                        ? cycleStart(DefaultCycles.WEEKLY, now.minusYears(1).with(WeekFields.ISO.weekOfWeekBasedYear(), week))
+                        : start;
+            } catch (RuntimeException ignored) {
+                // Not a key this cycle produces, or a week 53 missing from the year
+                return now;
+            }
+        }
+        if (options.cycle() instanceof DefaultCycles) {
+            Matcher matcher = DEFAULT_CYCLE_KEY.matcher(key);
+            if (matcher.matches()) {
+                try {
+                    return LocalDateTime.of(Integer.parseInt(matcher.group(1)), parsePart(matcher.group(2), 1),
+                            parsePart(matcher.group(3), 1), parsePart(matcher.group(4), 0), parsePart(matcher.group(5), 0));
+                } catch (DateTimeException ignored) {
+                    // Not a key this cycle produces, fall through to the current time
+                }
+            }
+        }
+        return options.now().get();
+    }
+
+    private static int parsePart(String part, int missing) {
+        return part != null ? Integer.parseInt(part) : missing;
+    }
+
+    /**
+     * Returns the counters of the cache of {@link Leaderboard} instances.
+     *
+     * @return the cache counters
+     * @see PeriodicLeaderboardOptions#withCacheCapacity(int) for sizing the cache
+     */
+    public LeaderboardCacheStats cacheStats() {
+        return leaderboards.stats();
+    }
+
+    /**
+     * Returns the leaderboard of the cycle containing the given time.
+     * <p>
+     * For {@link DefaultCycles} the leaderboard of the most recently resolved cycle is memoized
+     * together with the cycle boundaries, so until the next boundary passes this is a comparison
+     * of the time against them instead of formatting and looking up the key.
+     * </p>
+     *
+     * @param time the point in time, or {@code null} for the current time
+     * @return the leaderboard of the cycle
+     */
     public Leaderboard<T> getLeaderboardAt(LocalDateTime time) {
-        return getLeaderboard(time != null ? getKey(time) : getKeyNow());
+        LocalDateTime finalTime = time != null ? time : options.now().get();
+        CurrentCycle<T> cycle = currentCycle.get();
+        if (cycle != null && cycle.contains(finalTime)) {
+            return cycle.leaderboard();
+        }
+
+        String key = computeKey(finalTime);
+        if (!(options.cycle() instanceof DefaultCycles defaultCycle)) {
+            return leaderboards.get(key, k -> createLeaderboard(k, finalTime));
+        }
+        LocalDateTime start = cycleStart(defaultCycle, finalTime);
+        Leaderboard<T> leaderboard = registered(key, start);
+        CurrentCycle<T> resolved = new CurrentCycle<>(start, cycleEnd(defaultCycle, start), key, leaderboard);
+        // Only move forward, so a lookup of a past time does not evict the current cycle
+        if (cycle == null || !resolved.start().isBefore(cycle.start())) {
+            currentCycle.set(resolved);
+            // An eviction between the lookup and the memo is not seen by the eviction listener
+            if (!leaderboards.contains(key, leaderboard)) {
+                currentCycle.compareAndSet(resolved, null);
+            }
+        }
+        return leaderboard;
     }
 
     public String getKeyNow() {
@@ -110,27 +324,281 @@ public class PeriodicLeaderboard<T extends Number> {
     }
 
     public Leaderboard<T> getLeaderboardNow() {
-        return getLeaderboard(getKeyNow());
+        return getLeaderboardAt(options.now().get());
     }
 
+    /**
+     * Returns the keys of all cycles that have been written to.
+     *
+     * @return the cycle keys
+     */
     public Set<String> getExistingKeys() {
-        Set<String> keys = new HashSet<>();
-        String cursor = "0";
-        ScanParams scanParams = new ScanParams()
-                .match(baseKey + ":*")
-                .count(100);
-
-        do {
-            try (Jedis jedis = redisExtension.getJedis()) {
-                ScanResult<String> scanResult = jedis.scan(cursor, scanParams);
-                cursor = scanResult.getCursor();
-
-                for (String key : scanResult.getResult()) {
-                    keys.add(key.substring(baseKey.length() + 1));
+        return new LinkedHashSet<>(decodeKeys(readRegistry(new RedisCommand(Command.ZRANGE, registryKey,
+                Protocol.toByteArray(0), Protocol.toByteArray(-1)))));
+    }
+
+    /**
+     * Returns the keys of the written cycles starting within the given range, ordered by cycle start.
+     * <p>
+     * Starts are compared as local times; for example the cycles of the last 30 days are
+     * {@code getKeysBetween(now.minusDays(30), now)}.
+     * </p>
+     *
+     * @param from the earliest cycle start, inclusive
+     * @param to the latest cycle start, exclusive
+     * @return the cycle keys, oldest first
+     */
+    public List<String> getKeysBetween(LocalDateTime from, LocalDateTime to) {
+        return decodeKeys(readRegistry(new RedisCommand(Command.ZRANGEBYSCORE, registryKey,
+                Protocol.toByteArray(from.toEpochSecond(ZoneOffset.UTC)), exclusive(to))));
+    }
+
+    /**
+     * Returns the number of written cycles.
+     *
+     * @return the number of cycles in the registry
+     */
+    public long countKeys() {
+        return (Long) readRegistry(new RedisCommand(Command.ZCARD, registryKey));
+    }
+
+    /**
+     * Returns the number of written cycles starting within the given range.
+     *
+     * @param from the earliest cycle start, inclusive
+     * @param to the latest cycle start, exclusive
+     * @return the number of cycles in the range
+     */
+    public long countKeysBetween(LocalDateTime from, LocalDateTime to) {
+        return (Long) readRegistry(new RedisCommand(Command.ZCOUNT, registryKey,
+                Protocol.toByteArray(from.toEpochSecond(ZoneOffset.UTC)), exclusive(to)));
+    }
+
+    private static byte[] exclusive(LocalDateTime time) {
+        return SafeEncoder.encode("(" + time.toEpochSecond(ZoneOffset.UTC));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> decodeKeys(Object reply) {
+        if (reply instanceof RuntimeException error) {
+            throw error;
+        }
+        List<Object> members = (List<Object>) reply;
+        List<String> keys = new ArrayList<>(members.size());
+        for (Object member : members) {
+            keys.add(SafeEncoder.encode((byte[]) member));
+        }
+        return keys;
+    }
+
+    private Object readRegistry(RedisCommand command) {
+        return seedRegistry().thenCompose(ignored -> redisExtension.getTransport().execute(command)).join();
+    }
+
+    /**
+     * Adds the cycles written before the registry existed, once per base key and cycle.
+     */
+    private CompletableFuture<Void> seedRegistry() {
+        if (seeded) {
+            return CompletableFuture.completedFuture(null);
+        }
+        RedisTransport transport = redisExtension.getTransport();
+        return transport.execute(new RedisCommand(Command.EXISTS, seededKey)).thenCompose(exists -> {
+            if ((Long) exists > 0) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return rebuildRegistry().thenCompose(registered -> transport.execute(new RedisCommand(Command.SET, seededKey,
+                    Protocol.toByteArray(1))));
+        }).thenRun(() -> seeded = true);
+    }
+
+    /**
+     * Scans the keyspace for existing leaderboards of this cycle and adds the missing ones to the registry.
+     * <p>
+     * Registry entries are normally created by writes, so this is only needed for cycles written by
+     * versions without the registry or restored from elsewhere. It runs automatically on the first
+     * registry read or sweep of a base key and cycle, which makes such cycles visible to listing,
+     * counting and the retention sweep. Entries already in the registry keep their scores.
+     * With {@link CycleFunction custom cycles} every key under the base key that is not formatted by
+     * one of the {@link DefaultCycles} is taken for a cycle.
+     * </p>
+     *
+     * @return a future completed with the number of cycles added to the registry
+     */
+    public CompletableFuture<Long> rebuildRegistry() {
+        return scanBatch(SafeEncoder.encode("0"), 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<Long> scanBatch(byte[] cursor, long registered) {
+        RedisTransport transport = redisExtension.getTransport();
+        return transport.execute(new RedisCommand(Command.SCAN, cursor, Keyword.MATCH.getRaw(), scanPattern,
+                Keyword.COUNT.getRaw(), Protocol.toByteArray(SWEEP_BATCH_SIZE))).thenCompose(reply -> {
+            List<Object> scanResult = (List<Object>) reply;
+            byte[] nextCursor = (byte[]) scanResult.get(0);
+
+            List<byte[]> zadd = new ArrayList<>();
+            zadd.add(registryKey);
+            zadd.add(Keyword.NX.getRaw());
+            for (Object key : (List<Object>) scanResult.get(1)) {
+                byte[] keyBytes = (byte[]) key;
+                String cycleKey = new String(keyBytes, keyPrefix.length, keyBytes.length - keyPrefix.length, StandardCharsets.UTF_8);
+                if (isCycleKey(cycleKey)) {
+                    zadd.add(Protocol.toByteArray(parseCycleStart(cycleKey).toEpochSecond(ZoneOffset.UTC)));
+                    zadd.add(SafeEncoder.encode(cycleKey));
                 }
             }
-        } while (!cursor.equals("0"));
 
-        return keys;
+            CompletableFuture<Long> added = zadd.size() == 2 ? CompletableFuture.completedFuture(0L)
+                    : transport.execute(new RedisCommand(Command.ZADD, zadd.toArray(new byte[0][]))).thenApply(count -> (Long) count);
+            return added.thenCompose(count -> "0".equals(SafeEncoder.encode(nextCursor))
+                    ? CompletableFuture.completedFuture(registered + count)
+                    : scanBatch(nextCursor, registered + count));
+        });
+    }
+
+    private boolean isCycleKey(String key) {
+        if (options.cycle() instanceof DefaultCycles defaultCycle) {
+            return CYCLE_KEYS.get(defaultCycle).matcher(key).matches();
+        }
+        if (key.contains(Leaderboard.SNAPSHOT_INFIX) || key.contains(SnapshotFile.RESTORE_INFIX)) {
+            return false;
+        }
+        for (Pattern pattern : CYCLE_KEYS.values()) {
+            if (pattern.matcher(key).matches()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes the cycles that are past their retention from Redis and from the registry.
+     * <p>
+     * Cycles written with retention enabled expire on their own; this catches the ones that
+     * do not, such as cycles written before retention was enabled. Their keys are removed
+     * with {@code UNLINK}, so Redis frees large leaderboards in a background thread.
+     * This runs periodically in the background and rarely needs to be called directly.
+     * </p>
+     *
+     * @return a future completed with the number of removed cycles
+     * @throws IllegalStateException if retention is not enabled
+     */
+    public CompletableFuture<Long> sweepExpiredCycles() {
+        if (options.retention() == null) {
+            throw new IllegalStateException("Retention is not enabled");
+        }
+        DefaultCycles cycle = (DefaultCycles) options.cycle();
+        LocalDateTime cutoff = shiftCycles(cycle, cycleStart(cycle, options.now().get()), -(options.retention().retainedCycles() + 1L));
+        return seedRegistry().thenCompose(ignored -> sweepBatch(Protocol.toByteArray(cutoff.toEpochSecond(ZoneOffset.UTC)), 0));
+    }
+
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<Long> sweepBatch(byte[] cutoff, long removed) {
+        RedisTransport transport = redisExtension.getTransport();
+        return transport.execute(new RedisCommand(Command.ZRANGEBYSCORE, registryKey, SafeEncoder.encode("-inf"), cutoff,
+                Keyword.LIMIT.getRaw(), Protocol.toByteArray(0), Protocol.toByteArray(SWEEP_BATCH_SIZE))).thenCompose(reply -> {
+            List<Object> members = (List<Object>) reply;
+            if (members.isEmpty()) {
+                return CompletableFuture.completedFuture(removed);
+            }
+            byte[][] keys = new byte[members.size()][];
+            byte[][] registryArgs = new byte[members.size() + 1][];
+            registryArgs[0] = registryKey;
+            for (int i = 0; i < members.size(); i++) {
+                byte[] member = (byte[]) members.get(i);
+                keys[i] = concat(keyPrefix, member);
+                registryArgs[i + 1] = member;
+            }
+            return transport.pipeline(List.of(new RedisCommand(Command.MULTI), new RedisCommand(Command.UNLINK, keys),
+                    new RedisCommand(Command.ZREM, registryArgs), new RedisCommand(Command.EXEC))).thenCompose(results -> {
+                if (results.get(results.size() - 1) instanceof RuntimeException error) {
+                    throw error;
+                }
+                long total = removed + members.size();
+                return members.size() < SWEEP_BATCH_SIZE ? CompletableFuture.completedFuture(total) : sweepBatch(cutoff, total);
+            });
+        });
+    }
+
+    private void sweepQuietly() {
+        sweepExpiredCycles().whenComplete((removed, error) -> {
+            if (error != null) {
+                log.warn("Failed to sweep expired cycles of {}", baseKey, error);
+            } else if (removed > 0) {
+                log.debug("Removed {} expired cycles of {}", removed, baseKey);
+            }
+        });
+    }
+
+    /**
+     * Stops the background sweep of expired cycles. Cycles keep expiring through their {@code PEXPIREAT}.
+     */
+    @Override
+    public void close() {
+        if (sweeper != null) {
+            sweeper.cancel(false);
+        }
+    }
+
+    private static String registryName(Object cycle) {
+        return cycle instanceof DefaultCycles defaultCycle ? defaultCycle.name().toLowerCase(Locale.ROOT) : CUSTOM_REGISTRY;
+    }
+
+    static LocalDateTime cycleStart(DefaultCycles cycle, LocalDateTime time) {
+        return switch (cycle) {
+            case MINUTE -> time.truncatedTo(ChronoUnit.MINUTES);
+            case HOURLY -> time.truncatedTo(ChronoUnit.HOURS);
+            case DAILY -> time.truncatedTo(ChronoUnit.DAYS);
+            case WEEKLY -> time.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTHLY -> time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+            case YEARLY -> time.truncatedTo(ChronoUnit.DAYS).withDayOfYear(1);
+        };
+    }
+
+    static LocalDateTime cycleEnd(DefaultCycles cycle, LocalDateTime start) {
+        return shiftCycles(cycle, start, 1);
+    }
+
+    static LocalDateTime shiftCycles(DefaultCycles cycle, LocalDateTime start, long cycles) {
+        return switch (cycle) {
+            case MINUTE -> start.plusMinutes(cycles);
+            case HOURLY -> start.plusHours(cycles);
+            case DAILY -> start.plusDays(cycles);
+            case WEEKLY -> start.plusWeeks(cycles);
+            case MONTHLY -> start.plusMonths(cycles);
+            case YEARLY -> start.plusYears(cycles);
+        };
+    }
+
+    private static StringBuilder appendYear(StringBuilder key, LocalDateTime time) {
+        return key.append('y').append(time.getYear());
+    }
+
+    private static StringBuilder appendMonth(StringBuilder key, LocalDateTime time) {
+        return appendPadded(appendYear(key, time).append("-m"), time.getMonthValue(), 2);
+    }
+
+    private static StringBuilder appendDay(StringBuilder key, LocalDateTime time) {
+        return appendPadded(appendMonth(key, time).append("-d"), time.getDayOfMonth(), 2);
+    }
+
+    private static StringBuilder appendHour(StringBuilder key, LocalDateTime time) {
+        return appendPadded(appendDay(key, time).append("-h"), time.getHour(), 2);
+    }
+
+    private static StringBuilder appendPadded(StringBuilder key, int value, int width) {
+        for (int limit = 10, digits = 1; digits < width; limit *= 10, digits++) {
+            if (value < limit) {
+                key.append('0');
+            }
+        }
+        return key.append(value);
+    }
+
+    private static byte[] concat(byte[] prefix, byte[] suffix) {
+        byte[] result = Arrays.copyOf(prefix, prefix.length + suffix.length);
+        System.arraycopy(suffix, 0, result, prefix.length, suffix.length);
+        return result;
     }
 }
@@ -18,14 +18,23 @@ import java.time.LocalDateTime;
  * @param leaderboardOptions the configuration options for individual leaderboards
  * @param cycle the time cycle definition (DefaultCycles enum or CycleFunction)
  * @param now the function to provide current time (defaults to LocalDateTime::now)
+ * @param cacheCapacity the number of {@link Leaderboard} instances kept for reuse (defaults to 100)
+ * @param retention the automatic expiry of past cycles ({@code null} to keep cycles forever)
  * 
  * @see PeriodicLeaderboard for usage in periodic leaderboard creation
  * @see LeaderboardOptions for individual leaderboard configuration
  * @see DefaultCycles for predefined time cycles
  * @see CycleFunction for custom cycle implementations
  * @see NowFunction for custom time providers
+ * @see RetentionOptions for cycle expiry
  */
-public record PeriodicLeaderboardOptions(LeaderboardOptions leaderboardOptions, Object cycle, NowFunction now) {
+public record PeriodicLeaderboardOptions(LeaderboardOptions leaderboardOptions, Object cycle, NowFunction now, int cacheCapacity,
+                                         RetentionOptions retention) {
+
+    /**
+     * The default number of cached {@link Leaderboard} instances.
+     */
+    public static final int DEFAULT_CACHE_CAPACITY = 100;
 
     /**
      * Creates periodic leaderboard options with the default time provider.
@@ -40,13 +49,69 @@ public record PeriodicLeaderboardOptions(LeaderboardOptions leaderboardOptions,
         this(leaderboardOptions, cycle, LocalDateTime::now);
     }
 
+    /**
+     * Creates periodic leaderboard options with the default cache capacity.
+     *
+     * @param leaderboardOptions the configuration options for individual leaderboards
+     * @param cycle the time cycle definition (DefaultCycles enum or CycleFunction)
+     * @param now the function to provide current time
+     */
+    public PeriodicLeaderboardOptions(LeaderboardOptions leaderboardOptions, Object cycle, NowFunction now) {
+        this(leaderboardOptions, cycle, now, DEFAULT_CACHE_CAPACITY);
+    }
+
+    /**
+     * Creates periodic leaderboard options without retention.
+     *
+     * @param leaderboardOptions the configuration options for individual leaderboards
+     * @param cycle the time cycle definition (DefaultCycles enum or CycleFunction)
+     * @param now the function to provide current time
+     * @param cacheCapacity the number of {@link Leaderboard} instances kept for reuse
+     */
+    public PeriodicLeaderboardOptions(LeaderboardOptions leaderboardOptions, Object cycle, NowFunction now, int cacheCapacity) {
+        this(leaderboardOptions, cycle, now, cacheCapacity, null);
+    }
+
     /**
      * Creates periodic leaderboard options with all parameters specified.
      *
      * @param leaderboardOptions the configuration options for individual leaderboards
      * @param cycle the time cycle definition (DefaultCycles enum or CycleFunction)
      * @param now the function to provide current time
+     * @param cacheCapacity the number of {@link Leaderboard} instances kept for reuse
+     * @param retention the automatic expiry of past cycles, or {@code null} to keep cycles forever
      */
     public PeriodicLeaderboardOptions {
+        if (cacheCapacity < 1) {
+            throw new IllegalArgumentException("cacheCapacity must be positive");
+        }
+        if (retention != null && !(cycle instanceof DefaultCycles)) {
+            throw new IllegalArgumentException("retention requires one of the DefaultCycles, custom cycles have no known boundaries");
+        }
+    }
+
+    /**
+     * Returns a copy of these options with the given leaderboard cache capacity.
+     * <p>
+     * Services querying many historic cycles concurrently should size the cache to the number of
+     * cycles they access regularly, so their {@link Leaderboard} instances are reused instead of recreated.
+     * </p>
+     *
+     * @param cacheCapacity the number of {@link Leaderboard} instances kept for reuse
+     * @return the updated options
+     */
+    public PeriodicLeaderboardOptions withCacheCapacity(int cacheCapacity) {
+        return new PeriodicLeaderboardOptions(leaderboardOptions, cycle, now, cacheCapacity, retention);
+    }
+
+    /**
+     * Returns a copy of these options with the given cycle retention.
+     *
+     * @param retention the automatic expiry of past cycles, or {@code null} to keep cycles forever
+     * @return the updated options
+     * @throws IllegalArgumentException if the cycle is a custom {@link CycleFunction}
+     */
+    public PeriodicLeaderboardOptions withRetention(RetentionOptions retention) {
+        return new PeriodicLeaderboardOptions(leaderboardOptions, cycle, now, cacheCapacity, retention);
     }
 }
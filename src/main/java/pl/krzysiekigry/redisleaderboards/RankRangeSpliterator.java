@@ -0,0 +1,98 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over the entries of a range of 1-based ranks, read from Redis one batch at a time.
+ * <p>
+ * Splitting hands the lower half of the remaining ranks, aligned to the batch size, to a new
+ * spliterator and keeps the upper half, so the returned prefix precedes this spliterator's
+ * elements as {@link #ORDERED} requires. Segments read their batches independently, so a parallel
+ * stream fetches them concurrently over as many pooled connections as it has workers.
+ * </p>
+ * <p>
+ * The range is fixed when the stream starts. Entries moving between segments while the stream
+ * runs may be reported twice or not at all, and the stream ends early if the leaderboard shrinks.
+ * </p>
+ *
+ * @param <T> the numeric type of the leaderboard scores
+ */
+final class RankRangeSpliterator<T extends Number> implements Spliterator<Entry<T>> {
+
+    private final Leaderboard<T> leaderboard;
+    private final int batchSize;
+    private long nextRank;
+    private final long lastRank;
+
+    private List<Entry<T>> batch = Collections.emptyList();
+    private int batchIndex;
+
+    RankRangeSpliterator(Leaderboard<T> leaderboard, long firstRank, long lastRank, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.leaderboard = leaderboard;
+        this.nextRank = firstRank;
+        this.lastRank = lastRank;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Entry<T>> action) {
+        if (batchIndex == batch.size() && !fetch()) {
+            return false;
+        }
+        action.accept(batch.get(batchIndex++));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Entry<T>> action) {
+        do {
+            while (batchIndex < batch.size()) {
+                action.accept(batch.get(batchIndex++));
+            }
+        } while (fetch());
+    }
+
+    private boolean fetch() {
+        if (nextRank > lastRank) {
+            return false;
+        }
+        long upper = Math.min(lastRank, nextRank + batchSize - 1);
+        try {
+            batch = leaderboard.list(nextRank, upper).join();
+        } catch (CompletionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+        batchIndex = 0;
+        nextRank = batch.size() < upper - nextRank + 1 ? lastRank + 1 : upper + 1;
+        return !batch.isEmpty();
+    }
+
+    @Override
+    public Spliterator<Entry<T>> trySplit() {
+        long remainingBatches = (lastRank - nextRank + batchSize) / batchSize;
+        if (remainingBatches < 2 || batchIndex < batch.size()) {
+            return null;
+        }
+        long prefixLast = nextRank + (remainingBatches / 2) * batchSize - 1;
+        RankRangeSpliterator<T> prefix = new RankRangeSpliterator<>(leaderboard, nextRank, prefixLast, batchSize);
+        nextRank = prefixLast + 1;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Math.max(0, lastRank - nextRank + 1) + batch.size() - batchIndex;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+}
@@ -0,0 +1,31 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import redis.clients.jedis.commands.ProtocolCommand;
+import redis.clients.jedis.util.SafeEncoder;
+
+/**
+ * A single Redis command together with its binary arguments.
+ * <p>
+ * Commands are the unit of work exchanged with a {@link RedisTransport}. Arguments are kept
+ * as raw bytes so that keys and members are encoded exactly once, no matter which transport
+ * backend eventually writes them to the wire.
+ * </p>
+ *
+ * @param command the Redis command to send
+ * @param args the binary arguments of the command
+ *
+ * @see RedisTransport for executing commands
+ */
+public record RedisCommand(ProtocolCommand command, byte[]... args) {
+
+    /**
+     * Creates a command whose arguments are given as strings and encoded as UTF-8.
+     *
+     * @param command the Redis command to send
+     * @param args the arguments of the command
+     * @return the encoded command
+     */
+    public static RedisCommand of(ProtocolCommand command, String... args) {
+        return new RedisCommand(command, SafeEncoder.encodeMany(args));
+    }
+}
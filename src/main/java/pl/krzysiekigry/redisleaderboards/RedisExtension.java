@@ -1,7 +1,11 @@
 package pl.krzysiekigry.redisleaderboards;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.util.SafeEncoder;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
@@ -10,34 +14,60 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
 
 /**
  * Redis connection and Lua script management extension for leaderboard operations.
  * <p>
- * This class provides a centralized way to manage Redis connections through a connection pool
+ * This class provides a centralized way to manage Redis connections through a {@link RedisTransport}
  * and handles the loading and caching of Lua scripts used by the leaderboard system.
  * It ensures that scripts are loaded only once and provides efficient access to both
- * Redis connections and script SHA identifiers.
+ * the transport and script SHA identifiers.
  * </p>
  * <p>
- * The class automatically loads the following Lua scripts on first use:
+ * Extensions created from a {@link JedisPool} use a {@link JedisTransport}. A non-blocking
+ * {@link NioTransport}, or any other implementation, can be supplied instead with
+ * {@link #RedisExtension(RedisTransport)}.
+ * </p>
+ * <p>
+ * {@link #prepare()} loads the following Lua scripts and must be called once before any leaderboard
+ * of this extension is used:
  * <ul>
  *   <li>zaround - for retrieving entries around a specific position</li>
  *   <li>zbest - for finding the best score operations</li>
  *   <li>zfind - for finding specific entries</li>
  *   <li>zkeeptop - for maintaining top-N entries</li>
  *   <li>zrangescore - for range-based score queries</li>
+ *   <li>zseek - for resuming exports after a given score and member</li>
  * </ul>
+ * <p>
+ * All asynchronous leaderboard operations run their blocking Redis I/O on the {@link Executor}
+ * configured here. By default this is {@link ForkJoinPool#commonPool()}; applications with heavy
+ * leaderboard traffic should supply a dedicated executor, or use {@link #withVirtualThreads(JedisPool)}
+ * so that the connection pool size is the only limit on in-flight Redis calls.
+ * </p>
  * 
  * @see Leaderboard for usage in leaderboard operations
  * @see PeriodicLeaderboard for usage in periodic leaderboards
  */
 public class RedisExtension {
 
+    private static final Logger log = LoggerFactory.getLogger(RedisExtension.class);
+
+    private final RedisTransport transport;
     private final JedisPool jedisPool;
+    private final Executor executor;
+    private volatile ScheduledExecutorService scheduler;
+    private volatile InvalidationChannel invalidationChannel;
     private final Map<String, String> scriptShas = new HashMap<>();
-    private final AtomicBoolean scriptsLoaded = new AtomicBoolean(false);
+    private volatile boolean prepared;
+    private int serverMajorVersion;
+    private int serverMinorVersion;
 
     /**
      * Creates a new RedisExtension with the specified Jedis connection pool.
@@ -45,47 +75,283 @@ public class RedisExtension {
      * @param jedisPool the Jedis connection pool to use for Redis operations
      */
     public RedisExtension(JedisPool jedisPool) {
+        this(jedisPool, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new RedisExtension that runs asynchronous operations on the given executor.
+     *
+     * @param jedisPool the Jedis connection pool to use for Redis operations
+     * @param executor the executor running blocking Redis calls of asynchronous operations
+     */
+    public RedisExtension(JedisPool jedisPool, Executor executor) {
+        this(new JedisTransport(jedisPool, executor), jedisPool, executor);
+    }
+
+    /**
+     * Creates a new RedisExtension on top of the given transport.
+     *
+     * @param transport the transport used for all Redis operations
+     */
+    public RedisExtension(RedisTransport transport) {
+        this(transport, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new RedisExtension on top of the given transport.
+     *
+     * @param transport the transport used for all Redis operations
+     * @param executor the executor used for retry backoff and other deferred work
+     */
+    public RedisExtension(RedisTransport transport, Executor executor) {
+        this(transport, null, executor);
+    }
+
+    private RedisExtension(RedisTransport transport, JedisPool jedisPool, Executor executor) {
+        this.transport = transport;
         this.jedisPool = jedisPool;
+        this.executor = executor;
     }
 
     /**
-     * Prepares the Redis extension by loading all required Lua scripts.
+     * Creates a new RedisExtension that runs every asynchronous operation on its own virtual thread.
+     * <p>
+     * Virtual threads require Java 21 or newer. On older runtimes an unbounded pool of daemon
+     * platform threads is used instead, so in both cases the Jedis pool size remains the only
+     * limit on concurrent Redis calls.
+     * </p>
+     *
+     * @param jedisPool the Jedis connection pool to use for Redis operations
+     * @return a RedisExtension backed by a thread-per-task executor
+     */
+    public static RedisExtension withVirtualThreads(JedisPool jedisPool) {
+        return new RedisExtension(jedisPool, newThreadPerTaskExecutor());
+    }
+
+    private static ExecutorService newThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Virtual threads are not available on Java {}, falling back to a cached platform thread pool",
+                    Runtime.version().feature());
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "redis-leaderboards-io");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Prepares the Redis extension by loading all required Lua scripts and detecting the server version.
      * <p>
      * This method is thread-safe and ensures that scripts are loaded only once.
      * It can be called multiple times safely - subsequent calls will be ignored
      * if scripts have already been loaded.
      * </p>
+     * <p>
+     * The detected version decides which native commands leaderboards may use instead of
+     * their Lua fallbacks, for example {@code ZADD GT/LT} for {@link UpdatePolicy#BEST} on Redis 6.2+.
+     * </p>
+     * <p>
+     * Leaderboards build their commands inside asynchronous callbacks, which may run on the I/O threads
+     * of a non-blocking transport, so they never prepare the extension themselves: this method blocks
+     * until the server has answered and has to be called before the extension is used.
+     * </p>
      */
     public void prepare() {
-        if (scriptsLoaded.compareAndSet(false, true)) {
-            try (Jedis jedis = getJedis()) {
-                loadScript(jedis, "zaround");
-                loadScript(jedis, "zbest");
-                loadScript(jedis, "zfind");
-                loadScript(jedis, "zkeeptop");
-                loadScript(jedis, "zrangescore");
+        if (!prepared) {
+            synchronized (this) {
+                if (!prepared) {
+                    loadScript("zaround");
+                    loadScript("zbest");
+                    loadScript("zfind");
+                    loadScript("zkeeptop");
+                    loadScript("zrangescore");
+                    loadScript("zseek");
+                    detectServerVersion();
+                    prepared = true;
+                }
             }
         }
     }
 
-    private void loadScript(Jedis jedis, String scriptName) {
+    private void detectServerVersion() {
+        Object info = transport.execute(RedisCommand.of(Protocol.Command.INFO, "server")).join();
+        for (String line : SafeEncoder.encode((byte[]) info).split("\r\n")) {
+            if (line.startsWith("redis_version:")) {
+                String[] parts = line.substring("redis_version:".length()).split("\\.");
+                serverMajorVersion = Integer.parseInt(parts[0]);
+                serverMinorVersion = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+                log.debug("Detected Redis server version {}.{}", serverMajorVersion, serverMinorVersion);
+            }
+        }
+    }
+
+    /**
+     * Returns whether the connected server is at least the given Redis version.
+     *
+     * @param major the required major version
+     * @param minor the required minor version
+     * @return {@code true} if the server version is at least {@code major.minor}
+     * @throws IllegalStateException if {@link #prepare()} has not been called
+     */
+    boolean isServerVersionAtLeast(int major, int minor) {
+        requirePrepared();
+        return serverMajorVersion > major || (serverMajorVersion == major && serverMinorVersion >= minor);
+    }
+
+    private void loadScript(String scriptName) {
         try {
             byte[] scriptBytes = Files.readAllBytes(Paths.get(getClass().getResource("/lua/" + scriptName + ".lua").toURI()));
             String script = new String(scriptBytes, StandardCharsets.UTF_8);
-            scriptShas.put(scriptName, jedis.scriptLoad(script));
+            Object sha = transport.execute(RedisCommand.of(Protocol.Command.SCRIPT, "LOAD", script)).join();
+            scriptShas.put(scriptName, SafeEncoder.encode((byte[]) sha));
         } catch (IOException | URISyntaxException e) {
             throw new RuntimeException("Failed to load Lua script: " + scriptName, e);
         }
     }
 
+    /**
+     * Returns the SHA of a loaded Lua script.
+     *
+     * @param scriptName the name of the script
+     * @return the SHA to call the script with {@code EVALSHA}
+     * @throws IllegalStateException if {@link #prepare()} has not been called
+     */
     public String getScriptSha(String scriptName) {
-        if (!scriptsLoaded.get()) {
-            prepare();
-        }
+        requirePrepared();
         return scriptShas.get(scriptName);
     }
 
+    private void requirePrepared() {
+        if (!prepared) {
+            throw new IllegalStateException("RedisExtension.prepare() must be called before its leaderboards are used");
+        }
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Returns the scheduler shared by all leaderboards of this extension for timed background work,
+     * such as flushing coalesced writes.
+     * <p>
+     * The scheduler runs on a single daemon thread that is created on first use. Scheduled tasks
+     * only hand work over to the transport and must not block.
+     * </p>
+     *
+     * @return the shared scheduler
+     */
+    public ScheduledExecutorService getScheduler() {
+        ScheduledExecutorService result = scheduler;
+        if (result == null) {
+            synchronized (this) {
+                result = scheduler;
+                if (result == null) {
+                    result = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "redis-leaderboards-scheduler");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    scheduler = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Enables push-based invalidation of in-process caches through keyspace notifications,
+     * using a connection borrowed from the pool for the lifetime of the subscription. The
+     * connection is discarded afterwards instead of being returned to the pool.
+     * <p>
+     * The server configuration is left untouched, see {@link #enableInvalidation(boolean)}.
+     * </p>
+     *
+     * @return the invalidation channel of this extension
+     * @throws IllegalStateException if this extension is not backed by a {@link JedisPool}
+     * @see #enableInvalidation(Supplier)
+     */
+    public InvalidationChannel enableInvalidation() {
+        return enableInvalidation(false);
+    }
+
+    /**
+     * Enables push-based invalidation of in-process caches through keyspace notifications,
+     * using a connection borrowed from the pool for the lifetime of the subscription.
+     *
+     * @param configureServer whether missing {@code notify-keyspace-events} flags are enabled with
+     *                        {@code CONFIG SET}, which changes the setting for every client of the server
+     * @return the invalidation channel of this extension
+     * @throws IllegalStateException if this extension is not backed by a {@link JedisPool}
+     * @see #enableInvalidation(Supplier, boolean)
+     */
+    public InvalidationChannel enableInvalidation(boolean configureServer) {
+        if (jedisPool == null) {
+            throw new IllegalStateException("This RedisExtension is not backed by a JedisPool, supply a connection factory");
+        }
+        return enableInvalidation(jedisPool::getResource, configureServer);
+    }
+
+    /**
+     * Enables push-based invalidation of in-process caches through keyspace notifications.
+     * <p>
+     * Once enabled, leaderboard near-caches stop polling Redis and drop their snapshot only
+     * when the leaderboard key changes. Calling this method again returns the existing channel,
+     * until it is closed.
+     * </p>
+     *
+     * @param connectionFactory the factory of the dedicated subscriber connection, called again on every reconnect
+     * @return the invalidation channel of this extension
+     */
+    public InvalidationChannel enableInvalidation(Supplier<Jedis> connectionFactory) {
+        return enableInvalidation(connectionFactory, false);
+    }
+
+    /**
+     * Enables push-based invalidation of in-process caches through keyspace notifications.
+     * <p>
+     * Without {@code configureServer}, the required {@code notify-keyspace-events} flags must already
+     * be set on the server; until they are, near-caches keep polling.
+     * </p>
+     *
+     * @param connectionFactory the factory of the dedicated subscriber connection, called again on every reconnect
+     * @param configureServer whether missing {@code notify-keyspace-events} flags are enabled with
+     *                        {@code CONFIG SET}, which changes the setting for every client of the server
+     * @return the invalidation channel of this extension
+     */
+    public synchronized InvalidationChannel enableInvalidation(Supplier<Jedis> connectionFactory, boolean configureServer) {
+        if (invalidationChannel == null) {
+            invalidationChannel = new InvalidationChannel(connectionFactory, configureServer, this::invalidationChannelClosed);
+        }
+        return invalidationChannel;
+    }
+
+    private synchronized void invalidationChannelClosed(InvalidationChannel channel) {
+        if (invalidationChannel == channel) {
+            invalidationChannel = null;
+        }
+    }
+
+    /**
+     * Returns the invalidation channel of this extension.
+     *
+     * @return the invalidation channel, or {@code null} if invalidation has not been enabled or the channel was closed
+     */
+    public InvalidationChannel getInvalidationChannel() {
+        return invalidationChannel;
+    }
+
+    public RedisTransport getTransport() {
+        return transport;
+    }
+
     public Jedis getJedis() {
+        if (jedisPool == null) {
+            throw new IllegalStateException("This RedisExtension is not backed by a JedisPool");
+        }
         return jedisPool.getResource();
     }
 }
@@ -0,0 +1,54 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Service provider interface for the connection layer underneath {@link RedisExtension}.
+ * <p>
+ * A transport sends {@link RedisCommand}s to Redis and completes the returned futures with
+ * the raw replies: {@code byte[]} for bulk and status replies, {@link Long} for integer replies,
+ * {@link List} for array replies and {@code null} for nil replies. Error replies fail
+ * the future of {@link #execute(RedisCommand)} with a
+ * {@link redis.clients.jedis.exceptions.JedisDataException}.
+ * </p>
+ * <p>
+ * Two backends are provided:
+ * <ul>
+ *   <li>{@link JedisTransport} - runs each call on a pooled, blocking Jedis connection</li>
+ *   <li>{@link NioTransport} - multiplexes all calls over a few non-blocking connections</li>
+ * </ul>
+ *
+ * @see RedisExtension for the transport used by leaderboards
+ * @see RedisCommand for the command representation
+ */
+public interface RedisTransport extends AutoCloseable {
+
+    /**
+     * Sends a single command.
+     *
+     * @param command the command to send
+     * @return a future completed with the raw reply of the command
+     */
+    CompletableFuture<Object> execute(RedisCommand command);
+
+    /**
+     * Sends all commands back to back over a single connection and collects their replies.
+     * <p>
+     * Commands are written contiguously, so a pipeline may safely wrap its commands in
+     * {@code MULTI}/{@code EXEC}. Error replies do not fail the returned future; they are placed
+     * in the result list as {@link redis.clients.jedis.exceptions.JedisDataException} instances,
+     * the same way {@link redis.clients.jedis.Pipeline#syncAndReturnAll()} reports them.
+     * </p>
+     *
+     * @param commands the commands to send
+     * @return a future completed with the raw replies, in command order
+     */
+    CompletableFuture<List<Object>> pipeline(List<RedisCommand> commands);
+
+    /**
+     * Releases the resources held by this transport.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,96 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import redis.clients.jedis.util.DoublePrecision;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Decodes member and score bulk strings of Redis replies.
+ * <p>
+ * Scores are parsed straight from the reply bytes. Integers and short decimals, which are what
+ * leaderboards store almost exclusively, are converted exactly without creating a {@link String};
+ * anything else (exponents, mantissas beyond 2^53, {@code inf}) falls back to the JDK parser.
+ * Members are decoded by the leaderboard's {@link MemberCodec}, never with the platform charset.
+ * </p>
+ */
+final class ReplyDecoder {
+
+    /**
+     * Mantissas up to 2^53 and the powers of ten up to 10^22 are exact doubles, so one
+     * multiplication or division of the two is correctly rounded.
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private ReplyDecoder() {
+    }
+
+    interface EntryConsumer {
+        void accept(int index, byte[] member, byte[] score);
+    }
+
+    /**
+     * Returns an array reply as the list it was decoded to by the transport.
+     */
+    @SuppressWarnings("unchecked")
+    static List<Object> asList(Object reply) {
+        return (List<Object>) reply;
+    }
+
+    /**
+     * Calls the consumer for each pair of a flat {@code member, score, member, score...} reply.
+     *
+     * @return the number of pairs
+     */
+    static int forEachPair(List<Object> reply, EntryConsumer consumer) {
+        int pairs = reply.size() / 2;
+        for (int i = 0; i < pairs; i++) {
+            consumer.accept(i, (byte[]) reply.get(2 * i), (byte[]) reply.get(2 * i + 1));
+        }
+        return pairs;
+    }
+
+    static double parseScore(byte[] bytes) {
+        int length = bytes.length;
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (bytes[0] == '-' || bytes[0] == '+')) {
+            negative = bytes[0] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < length; i++) {
+            byte b = bytes[i];
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                if (mantissa > MAX_EXACT_MANTISSA || ++digits > 18) {
+                    return parseSlow(bytes);
+                }
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                return parseSlow(bytes);
+            }
+        }
+        if (digits == 0 || fractionDigits == 0 || fractionDigits >= POWERS_OF_TEN.length) {
+            return parseSlow(bytes);
+        }
+
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+
+    private static double parseSlow(byte[] bytes) {
+        return DoublePrecision.parseFloatingPointNumber(new String(bytes, StandardCharsets.US_ASCII));
+    }
+}
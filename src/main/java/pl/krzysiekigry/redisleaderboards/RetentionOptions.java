@@ -0,0 +1,56 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import java.time.Duration;
+
+/**
+ * Configuration of automatic expiry for the cycles of a {@link PeriodicLeaderboard}.
+ * <p>
+ * Every write to a cycle sets its {@code PEXPIREAT} to the boundary at which the cycle falls out of
+ * retention: a cycle is kept while it is current and for {@code retainedCycles} cycles after it ends.
+ * Cycles that are past that boundary but still present, written before retention was enabled, are
+ * removed by a background sweep with {@code UNLINK}, which frees large sorted sets off the main Redis
+ * thread. The sweep finds them through the cycle registry, which takes in cycles written before the
+ * registry existed on the first sweep, see {@link PeriodicLeaderboard#rebuildRegistry()}.
+ * </p>
+ * <p>
+ * Boundaries are the cycle boundaries in the time of the {@link NowFunction}, whichever zone its clock
+ * runs in; for example {@code new RetentionOptions(48)} on an {@link DefaultCycles#HOURLY} leaderboard
+ * keeps the current hour and the 48 hours before it.
+ * </p>
+ *
+ * @param retainedCycles the number of ended cycles kept besides the current one
+ * @param sweepInterval the delay between background sweeps for cycles past their retention
+ *
+ * @see PeriodicLeaderboardOptions#withRetention(RetentionOptions) for enabling retention
+ */
+public record RetentionOptions(int retainedCycles, Duration sweepInterval) {
+
+    /**
+     * The default delay between background sweeps.
+     */
+    public static final Duration DEFAULT_SWEEP_INTERVAL = Duration.ofMinutes(1);
+
+    /**
+     * Creates retention options, validating the parameters.
+     *
+     * @param retainedCycles the number of ended cycles kept besides the current one
+     * @param sweepInterval the delay between background sweeps for cycles past their retention
+     */
+    public RetentionOptions {
+        if (retainedCycles < 0) {
+            throw new IllegalArgumentException("retainedCycles must not be negative");
+        }
+        if (sweepInterval == null || sweepInterval.isNegative() || sweepInterval.isZero()) {
+            throw new IllegalArgumentException("sweepInterval must be positive");
+        }
+    }
+
+    /**
+     * Creates retention options sweeping at the {@linkplain #DEFAULT_SWEEP_INTERVAL default interval}.
+     *
+     * @param retainedCycles the number of ended cycles kept besides the current one
+     */
+    public RetentionOptions(int retainedCycles) {
+        this(retainedCycles, DEFAULT_SWEEP_INTERVAL);
+    }
+}
@@ -0,0 +1,147 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A write-behind buffer that sums score increments per member before sending them to Redis.
+ * <p>
+ * Increments added with {@link #add(String, Number)} are merged in memory, so a hot member
+ * receiving many small deltas costs a single {@code ZINCRBY} per flush instead of one per event.
+ * Pending deltas are flushed in one pipelined batch:
+ * <ul>
+ *   <li>periodically, so that no delta stays buffered longer than the configured staleness bound</li>
+ *   <li>as soon as the number of buffered members reaches the configured threshold</li>
+ *   <li>explicitly through {@link #flush()} or {@link #close()}</li>
+ * </ul>
+ * Deltas of a failed flush are merged back into the buffer and retried with the next flush.
+ * </p>
+ *
+ * @param <T> the numeric type of the leaderboard scores
+ *
+ * @see Leaderboard#aggregator(Duration, int) for creating aggregators
+ * @see UpdatePolicy#AGGREGATE for the applied update policy
+ */
+public class ScoreAggregator<T extends Number> implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ScoreAggregator.class);
+
+    /**
+     * Mutable per-member sum; only read and written under the map's bin lock.
+     */
+    private static final class Delta {
+        private double value;
+    }
+
+    private final Leaderboard<T> leaderboard;
+    private final int maxPendingMembers;
+    private final ConcurrentHashMap<String, Delta> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean thresholdFlushScheduled = new AtomicBoolean();
+    private final ScheduledFuture<?> periodicFlush;
+    private volatile boolean closed;
+
+    ScoreAggregator(Leaderboard<T> leaderboard, Duration maxStaleness, int maxPendingMembers, RedisExtension redisExtension) {
+        if (maxStaleness == null || maxStaleness.isNegative() || maxStaleness.isZero()) {
+            throw new IllegalArgumentException("maxStaleness must be positive");
+        }
+        if (maxPendingMembers < 1) {
+            throw new IllegalArgumentException("maxPendingMembers must be positive");
+        }
+        this.leaderboard = leaderboard;
+        this.maxPendingMembers = maxPendingMembers;
+        long period = maxStaleness.toNanos();
+        this.periodicFlush = redisExtension.getScheduler().scheduleAtFixedRate(this::flushQuietly, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Adds a score increment for the given member.
+     *
+     * @param id the member to increment
+     * @param delta the increment to add to the member's score
+     * @throws IllegalStateException if the aggregator has been closed
+     */
+    public void add(String id, T delta) {
+        if (closed) {
+            throw new IllegalStateException("Aggregator is closed");
+        }
+        merge(id, delta.doubleValue());
+        if (pending.size() >= maxPendingMembers && thresholdFlushScheduled.compareAndSet(false, true)) {
+            flush().whenComplete((ignored, error) -> thresholdFlushScheduled.set(false));
+        }
+    }
+
+    /**
+     * Returns the number of members with buffered increments.
+     *
+     * @return the number of pending members
+     */
+    public int pendingMembers() {
+        return pending.size();
+    }
+
+    /**
+     * Sends all buffered increments to Redis in one pipelined batch.
+     *
+     * @return a future completed once the flushed increments have been applied
+     */
+    public CompletableFuture<Void> flush() {
+        List<String> ids = new ArrayList<>(pending.keySet());
+        if (ids.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<EntryUpdateQuery<T>> entries = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Delta delta = pending.remove(id);
+            if (delta != null) {
+                entries.add(new EntryUpdateQuery<>(id, leaderboard.getT(delta.value)));
+            }
+        }
+
+        return leaderboard.update(entries, UpdatePolicy.AGGREGATE).handle((ignored, error) -> {
+            if (error != null) {
+                log.warn("Failed to flush {} aggregated increments, keeping them for the next flush", entries.size(), error);
+                entries.forEach(entry -> merge(entry.id(), entry.value().doubleValue()));
+                throw new RuntimeException("Failed to flush aggregated increments", error);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Stops periodic flushing and flushes the remaining increments, waiting for them to be applied.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        periodicFlush.cancel(false);
+        flush().join();
+    }
+
+    private void merge(String id, double value) {
+        pending.compute(id, (key, delta) -> {
+            if (delta == null) {
+                delta = new Delta();
+            }
+            delta.value += value;
+            return delta;
+        });
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Periodic flush of aggregated increments failed", e);
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Protocol.Command;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Writes and reads the binary dump format of leaderboards.
+ * <p>
+ * A dump consists of a 16-byte header followed by independently compressed blocks:
+ * <ul>
+ *   <li>header - magic {@code RLBD}, format version, compression, two reserved bytes and the total number of entries</li>
+ *   <li>block header - number of entries, raw length, stored length and the CRC32C of the raw bytes</li>
+ *   <li>block body - per entry the varint length of the member, the member bytes and the score as a raw double</li>
+ * </ul>
+ * Entries are stored in rank order with the member bytes exactly as kept in Redis, so a dump
+ * does not depend on the {@link MemberCodec} or the score type of the leaderboard. Blocks are
+ * deflated unless that does not make them smaller.
+ * </p>
+ * <p>
+ * Dumping reads the leaderboard in large pipelined pages and writes every block with a single
+ * {@link FileChannel} call. Restoring maps each block of the file into memory, verifies it and
+ * sends its entries as large {@code ZADD} commands over several connections at once.
+ * </p>
+ * <p>
+ * Entries are restored into a temporary key that every pipeline gives a time to live, so a restore
+ * that dies halfway cannot leave it behind. The key is swapped in with {@code RENAME} in one
+ * {@code MULTI/EXEC} block that also drops that time to live and re-applies the cycle registration
+ * of a periodic leaderboard, whose expiry {@code RENAME} would otherwise replace.
+ * </p>
+ */
+final class SnapshotFile {
+
+    private static final int MAGIC = 0x524C4244; // "RLBD"
+    private static final byte FORMAT_VERSION = 1;
+    private static final byte STORED = 0;
+    private static final byte DEFLATED = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int BLOCK_HEADER_SIZE = 16;
+
+    private static final int BLOCK_SIZE = 1 << 20;
+    private static final int DUMP_BATCH_SIZE = 10_000;
+    private static final int DUMP_READ_AHEAD = 2;
+    private static final int RESTORE_ZADD_SIZE = 1_000;
+    private static final int RESTORE_PIPELINE_SIZE = 16;
+    private static final int RESTORE_PARALLELISM = 4;
+    static final String RESTORE_INFIX = ":restore:";
+    private static final long RESTORE_TTL_MS = 3_600_000;
+
+    private SnapshotFile() {
+    }
+
+    static long dump(Leaderboard<?> leaderboard, Path file) throws IOException {
+        PageIterator<List<Object>> pages = new PageIterator<>(
+                (rank, size, count) -> leaderboard.listPages(rank, size, count, (reply, firstRank) -> reply),
+                reply -> reply.size() / 2, DUMP_BATCH_SIZE, DUMP_READ_AHEAD);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             BlockWriter writer = new BlockWriter(channel)) {
+            channel.position(HEADER_SIZE);
+            while (pages.hasNext()) {
+                ReplyDecoder.forEachPair(pages.next(), (index, member, score) ->
+                        writer.add(member, ReplyDecoder.parseScore(score)));
+            }
+            writer.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).put(FORMAT_VERSION).put(DEFLATED).putShort((short) 0).putLong(writer.entries).flip();
+            writeFully(channel, header, 0);
+            return writer.entries;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    static long restore(Leaderboard<?> leaderboard, Path file) throws IOException {
+        RedisTransport transport = leaderboard.transport();
+        byte[] key = leaderboard.keyBytes();
+        byte[] restoreKey = concat(key, SafeEncoder.encode(RESTORE_INFIX + UUID.randomUUID()));
+        Deque<CompletableFuture<List<Object>>> inFlight = new ArrayDeque<>();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a leaderboard dump: " + file);
+            }
+            byte version = header.get();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported leaderboard dump version " + version);
+            }
+            header.get();
+            header.getShort();
+            long expected = header.getLong();
+
+            List<RedisCommand> commands = new ArrayList<>(RESTORE_PIPELINE_SIZE + 1);
+            List<byte[]> zadd = newZadd(restoreKey);
+            long restored = 0;
+            long position = HEADER_SIZE;
+            Inflater inflater = new Inflater();
+            try {
+                while (restored < expected) {
+                    Block block = readBlock(channel, position, inflater);
+                    ByteBuffer entries = block.entries();
+                    for (int i = 0; i < block.entryCount(); i++) {
+                        byte[] member = new byte[readVarint(entries)];
+                        entries.get(member);
+                        zadd.add(Protocol.toByteArray(entries.getDouble()));
+                        zadd.add(member);
+                        restored++;
+                        if (zadd.size() == 1 + 2 * RESTORE_ZADD_SIZE) {
+                            commands.add(new RedisCommand(Command.ZADD, zadd.toArray(new byte[0][])));
+                            zadd = newZadd(restoreKey);
+                            if (commands.size() == RESTORE_PIPELINE_SIZE) {
+                                send(transport, restoreKey, commands, inFlight);
+                                commands = new ArrayList<>(RESTORE_PIPELINE_SIZE + 1);
+                            }
+                        }
+                    }
+                    if (entries.hasRemaining()) {
+                        throw new IOException("Corrupted block at offset " + position);
+                    }
+                    position = block.end();
+                }
+            } catch (BufferUnderflowException e) {
+                throw new IOException("Corrupted block at offset " + position, e);
+            } finally {
+                inflater.end();
+            }
+            if (restored != expected || position != channel.size()) {
+                throw new IOException("Entry count does not match the header of " + file);
+            }
+            if (zadd.size() > 1) {
+                commands.add(new RedisCommand(Command.ZADD, zadd.toArray(new byte[0][])));
+            }
+            if (!commands.isEmpty()) {
+                send(transport, restoreKey, commands, inFlight);
+            }
+            while (!inFlight.isEmpty()) {
+                await(inFlight.poll());
+            }
+
+            // Swap the restored entries in atomically, replacing the previous contents
+            Leaderboard.CycleRegistration registration = leaderboard.cycleRegistration();
+            List<RedisCommand> swap = new ArrayList<>();
+            swap.add(new RedisCommand(Command.MULTI));
+            if (restored > 0) {
+                swap.add(new RedisCommand(Command.RENAME, restoreKey, key));
+                swap.add(new RedisCommand(Command.PERSIST, key));
+                if (registration != null) {
+                    swap.addAll(registration.onWrite());
+                }
+            } else {
+                swap.add(new RedisCommand(Command.DEL, key));
+                if (registration != null) {
+                    swap.add(registration.onClear());
+                }
+            }
+            swap.add(new RedisCommand(Command.EXEC));
+            List<Object> results = transport.pipeline(swap).join();
+            if (results.get(results.size() - 1) instanceof RuntimeException error) {
+                throw new RuntimeException("Failed to restore leaderboard entries", error);
+            }
+            return restored;
+        } catch (IOException | RuntimeException e) {
+            discard(transport, restoreKey, inFlight, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Removes the temporary key once no pipeline that could recreate it is left in flight.
+     */
+    private static void discard(RedisTransport transport, byte[] restoreKey, Deque<CompletableFuture<List<Object>>> inFlight,
+                                Exception failure) {
+        for (CompletableFuture<List<Object>> pipeline : inFlight) {
+            try {
+                pipeline.join();
+            } catch (RuntimeException ignored) {
+                // Already failing, the key is removed below either way
+            }
+        }
+        try {
+            transport.execute(new RedisCommand(Command.UNLINK, restoreKey)).join();
+        } catch (RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    private static List<byte[]> newZadd(byte[] key) {
+        List<byte[]> args = new ArrayList<>(1 + 2 * RESTORE_ZADD_SIZE);
+        args.add(key);
+        return args;
+    }
+
+    /**
+     * Sends a pipeline, first waiting for the oldest one once {@link #RESTORE_PARALLELISM} are in flight.
+     * The pipeline ends by refreshing the time to live of the temporary key.
+     */
+    private static void send(RedisTransport transport, byte[] restoreKey, List<RedisCommand> commands,
+                             Deque<CompletableFuture<List<Object>>> inFlight) {
+        if (inFlight.size() == RESTORE_PARALLELISM) {
+            await(inFlight.poll());
+        }
+        commands.add(new RedisCommand(Command.PEXPIRE, restoreKey, Protocol.toByteArray(RESTORE_TTL_MS)));
+        inFlight.add(transport.pipeline(commands));
+    }
+
+    private static void await(CompletableFuture<?> future) {
+        Object result;
+        try {
+            result = future.join();
+        } catch (CompletionException e) {
+            throw new RuntimeException("Failed to restore leaderboard entries", e.getCause());
+        }
+        if (result instanceof List<?> replies) {
+            for (Object reply : replies) {
+                if (reply instanceof RuntimeException error) {
+                    throw new RuntimeException("Failed to restore leaderboard entries", error);
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps the block at the given position and returns its verified, uncompressed entries.
+     */
+    private static Block readBlock(FileChannel channel, long position, Inflater inflater) throws IOException {
+        ByteBuffer blockHeader = readFully(channel, position, BLOCK_HEADER_SIZE);
+        int entries = blockHeader.getInt();
+        int rawLength = blockHeader.getInt();
+        int storedLength = blockHeader.getInt();
+        int checksum = blockHeader.getInt();
+        if (entries <= 0 || rawLength < 0 || storedLength < 0 || position + BLOCK_HEADER_SIZE + storedLength > channel.size()) {
+            throw new IOException("Corrupted block header at offset " + position);
+        }
+
+        MappedByteBuffer stored = channel.map(FileChannel.MapMode.READ_ONLY, position + BLOCK_HEADER_SIZE, storedLength);
+        ByteBuffer raw;
+        if (storedLength == rawLength) {
+            raw = stored;
+        } else {
+            raw = ByteBuffer.allocate(rawLength);
+            inflater.reset();
+            inflater.setInput(stored);
+            try {
+                while (raw.hasRemaining() && !inflater.finished()) {
+                    if (inflater.inflate(raw) == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupted block at offset " + position, e);
+            }
+            if (raw.hasRemaining() || !inflater.finished()) {
+                throw new IOException("Corrupted block at offset " + position);
+            }
+            raw.flip();
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(raw.duplicate());
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("Checksum mismatch in block at offset " + position);
+        }
+        return new Block(raw, entries, position + BLOCK_HEADER_SIZE + storedLength);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of leaderboard dump");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static int readVarint(ByteBuffer buffer) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                if (value < 0 || value > buffer.remaining()) {
+                    throw new IOException("Corrupted member length");
+                }
+                return value;
+            }
+        }
+        throw new IOException("Corrupted member length");
+    }
+
+    private static byte[] concat(byte[] prefix, byte[] suffix) {
+        byte[] result = Arrays.copyOf(prefix, prefix.length + suffix.length);
+        System.arraycopy(suffix, 0, result, prefix.length, suffix.length);
+        return result;
+    }
+
+    /**
+     * Collects entries into raw blocks and writes them compressed and checksummed.
+     */
+    private static final class BlockWriter implements AutoCloseable {
+
+        private final FileChannel channel;
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private ByteBuffer raw = ByteBuffer.allocate(BLOCK_SIZE);
+        private ByteBuffer out = ByteBuffer.allocate(BLOCK_HEADER_SIZE + BLOCK_SIZE);
+        private int blockEntries;
+        private long entries;
+
+        BlockWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void add(byte[] member, double score) {
+            int size = 5 + member.length + Double.BYTES;
+            if (raw.remaining() < size) {
+                flushUnchecked();
+                if (raw.capacity() < size) {
+                    raw = ByteBuffer.allocate(size);
+                    out = ByteBuffer.allocate(BLOCK_HEADER_SIZE + size + size / 2 + 64);
+                }
+            }
+            int length = member.length;
+            while ((length & ~0x7F) != 0) {
+                raw.put((byte) ((length & 0x7F) | 0x80));
+                length >>>= 7;
+            }
+            raw.put((byte) length);
+            raw.put(member);
+            raw.putDouble(score);
+            blockEntries++;
+            entries++;
+        }
+
+        private void flushUnchecked() {
+            try {
+                flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void flush() throws IOException {
+            if (blockEntries == 0) {
+                return;
+            }
+            raw.flip();
+            CRC32C crc = new CRC32C();
+            crc.update(raw.duplicate());
+
+            out.clear().position(BLOCK_HEADER_SIZE);
+            deflater.reset();
+            deflater.setInput(raw.duplicate());
+            deflater.finish();
+            while (!deflater.finished() && out.hasRemaining()) {
+                deflater.deflate(out);
+            }
+            if (!deflater.finished() || out.position() - BLOCK_HEADER_SIZE >= raw.remaining()) {
+                out.clear().position(BLOCK_HEADER_SIZE);
+                out.put(raw.duplicate());
+            }
+            int storedLength = out.position() - BLOCK_HEADER_SIZE;
+            out.putInt(0, blockEntries).putInt(4, raw.remaining()).putInt(8, storedLength).putInt(12, (int) crc.getValue());
+            out.flip();
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            raw.clear();
+            blockEntries = 0;
+        }
+
+        @Override
+        public void close() {
+            deflater.end();
+        }
+    }
+
+    private record Block(ByteBuffer entries, int entryCount, long end) {
+    }
+}
@@ -0,0 +1,202 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams the entries of a leaderboard as {@link TextFormat} lines into a channel.
+ * <p>
+ * Pages are read as raw replies and every line is written straight into one reused buffer:
+ * ranks are formatted digit by digit, scores are copied from the reply bytes and members of
+ * {@link MemberCodec#UTF8} leaderboards are escaped without being decoded. Memory use therefore
+ * does not depend on the size of the leaderboard.
+ * </p>
+ */
+final class TextExporter {
+
+    private static final int BATCH_SIZE = 10_000;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final byte[] CSV_HEADER = "rank,id,score\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_RANK = "{\"rank\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_ID = ",\"id\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_SCORE = "\",\"score\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final WritableByteChannel channel;
+    private final TextFormat format;
+    private final MemberCodec memberCodec;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] digits = new byte[20];
+
+    private TextExporter(WritableByteChannel channel, TextFormat format, MemberCodec memberCodec) {
+        this.channel = channel;
+        this.format = format;
+        this.memberCodec = memberCodec;
+    }
+
+    static long export(Leaderboard<?> leaderboard, WritableByteChannel channel, TextFormat format, boolean gzip) throws IOException {
+        if (!gzip) {
+            return new TextExporter(channel, format, leaderboard.memberCodec()).write(leaderboard);
+        }
+        // Closing the gzip stream ends its native deflater, but must not close the caller's channel
+        OutputStream target = new FilterOutputStream(Channels.newOutputStream(channel)) {
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                out.write(bytes, offset, length);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        try (GZIPOutputStream compressed = new GZIPOutputStream(target, BUFFER_SIZE)) {
+            return new TextExporter(Channels.newChannel(compressed), format, leaderboard.memberCodec()).write(leaderboard);
+        }
+    }
+
+    private long write(Leaderboard<?> leaderboard) throws IOException {
+        PageIterator<List<Object>> pages = new PageIterator<>(
+                (rank, size, count) -> leaderboard.listPages(rank, size, count, (reply, firstRank) -> reply),
+                reply -> reply.size() / 2, BATCH_SIZE, ExportStream.DEFAULT_READ_AHEAD);
+
+        if (format == TextFormat.CSV) {
+            put(CSV_HEADER);
+        }
+        long[] rank = {1};
+        try {
+            while (pages.hasNext()) {
+                ReplyDecoder.forEachPair(pages.next(), (index, member, score) -> {
+                    try {
+                        writeLine(rank[0]++, member, score);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        drain();
+        return rank[0] - 1;
+    }
+
+    private void writeLine(long rank, byte[] member, byte[] score) throws IOException {
+        byte[] id = memberCodec == MemberCodec.UTF8 ? member :
+                memberCodec.decode(member).getBytes(StandardCharsets.UTF_8);
+        if (format == TextFormat.CSV) {
+            putLong(rank);
+            put((byte) ',');
+            putCsvField(id);
+            put((byte) ',');
+            put(score);
+        } else {
+            put(JSON_RANK);
+            putLong(rank);
+            put(JSON_ID);
+            putJsonString(id);
+            put(JSON_SCORE);
+            boolean infinite = score.length > 0 && (score[score.length - 1] == 'f' || score[score.length - 1] == 'F');
+            if (infinite) {
+                put((byte) '"');
+                put(score);
+                put((byte) '"');
+            } else {
+                put(score);
+            }
+            put((byte) '}');
+        }
+        put((byte) '\n');
+    }
+
+    private void putCsvField(byte[] id) throws IOException {
+        boolean quote = false;
+        for (byte b : id) {
+            if (b == ',' || b == '"' || b == '\n' || b == '\r') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            put(id);
+            return;
+        }
+        put((byte) '"');
+        for (byte b : id) {
+            if (b == '"') {
+                put((byte) '"');
+            }
+            put(b);
+        }
+        put((byte) '"');
+    }
+
+    /**
+     * Escapes a UTF-8 string byte by byte; bytes of multi-byte characters are never ASCII and pass unchanged.
+     */
+    private void putJsonString(byte[] id) throws IOException {
+        for (byte b : id) {
+            if (b == '"' || b == '\\') {
+                put((byte) '\\');
+                put(b);
+            } else if (b >= 0 && b < 0x20) {
+                put((byte) '\\');
+                put((byte) 'u');
+                put((byte) '0');
+                put((byte) '0');
+                put(HEX_DIGITS[b >> 4]);
+                put(HEX_DIGITS[b & 0xF]);
+            } else {
+                put(b);
+            }
+        }
+    }
+
+    private void putLong(long value) throws IOException {
+        int position = digits.length;
+        do {
+            digits[--position] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        put(digits, position, digits.length - position);
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put(b);
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        put(bytes, 0, bytes.length);
+    }
+
+    private void put(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int chunk = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, chunk);
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,27 @@
+package pl.krzysiekigry.redisleaderboards;
+
+/**
+ * Defines the line-based text formats of leaderboard exports.
+ * <p>
+ * Both formats write one entry per line with its rank, identifier and score. Scores are written
+ * exactly as Redis returns them, so no precision is lost to formatting.
+ * </p>
+ *
+ * @see Leaderboard#exportText(java.io.OutputStream, TextFormat, boolean) for text exports
+ */
+public enum TextFormat {
+
+    /**
+     * Comma-separated values with a {@code rank,id,score} header line, quoted as in RFC 4180.
+     */
+    CSV,
+
+    /**
+     * One JSON object per line, for example {@code {"rank":1,"id":"player1","score":100}}.
+     * <p>
+     * Infinite scores, which JSON numbers cannot represent, are written as the strings
+     * {@code "inf"} and {@code "-inf"}.
+     * </p>
+     */
+    JSON_LINES
+}
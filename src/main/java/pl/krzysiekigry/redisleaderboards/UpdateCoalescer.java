@@ -0,0 +1,128 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Gathers concurrent single-entry updates of one leaderboard into pipelined batches.
+ * <p>
+ * An update arriving while no batch is in flight is flushed right away. Updates arriving while
+ * a batch is in flight are buffered until that batch completes, the buffer reaches
+ * {@link CoalescingOptions#maxBatchSize()}, or {@link CoalescingOptions#maxDelay()} passes,
+ * whichever happens first. The batching window therefore tracks the round-trip time under load
+ * and disappears when the leaderboard is idle.
+ * </p>
+ *
+ * @param <T> the numeric type of the leaderboard scores
+ */
+final class UpdateCoalescer<T extends Number> {
+
+    private record PendingUpdate<T extends Number>(EntryUpdateQuery<T> entry, UpdatePolicy updatePolicy, CompletableFuture<T> future) {
+    }
+
+    private final BiFunction<List<EntryUpdateQuery<T>>, List<UpdatePolicy>, CompletableFuture<List<T>>> flushFunction;
+    private final CoalescingOptions options;
+    private final ScheduledExecutorService scheduler;
+
+    private List<PendingUpdate<T>> buffer = new ArrayList<>();
+    private int inFlight;
+    private ScheduledFuture<?> timer;
+
+    UpdateCoalescer(BiFunction<List<EntryUpdateQuery<T>>, List<UpdatePolicy>, CompletableFuture<List<T>>> flushFunction,
+                    CoalescingOptions options, ScheduledExecutorService scheduler) {
+        this.flushFunction = flushFunction;
+        this.options = options;
+        this.scheduler = scheduler;
+    }
+
+    CompletableFuture<T> submit(EntryUpdateQuery<T> entry, UpdatePolicy updatePolicy) {
+        PendingUpdate<T> update = new PendingUpdate<>(entry, updatePolicy, new CompletableFuture<>());
+        List<PendingUpdate<T>> batch = null;
+        synchronized (this) {
+            buffer.add(update);
+            if (inFlight == 0 || buffer.size() >= options.maxBatchSize()) {
+                batch = drain();
+            } else if (timer == null) {
+                timer = scheduler.schedule(this::flushExpired, options.maxDelay().toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+        if (batch != null) {
+            flush(batch);
+        }
+        return update.future();
+    }
+
+    private void flushExpired() {
+        List<PendingUpdate<T>> batch;
+        synchronized (this) {
+            timer = null;
+            if (buffer.isEmpty()) {
+                return;
+            }
+            batch = drain();
+        }
+        flush(batch);
+    }
+
+    private void onBatchCompleted() {
+        List<PendingUpdate<T>> batch = null;
+        synchronized (this) {
+            inFlight--;
+            if (inFlight == 0 && !buffer.isEmpty()) {
+                batch = drain();
+            }
+        }
+        if (batch != null) {
+            flush(batch);
+        }
+    }
+
+    /**
+     * Takes the buffered updates as a new in-flight batch. Must be called while holding the lock.
+     */
+    private List<PendingUpdate<T>> drain() {
+        List<PendingUpdate<T>> batch = buffer;
+        buffer = new ArrayList<>();
+        inFlight++;
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+        }
+        return batch;
+    }
+
+    private void flush(List<PendingUpdate<T>> batch) {
+        List<EntryUpdateQuery<T>> entries = new ArrayList<>(batch.size());
+        List<UpdatePolicy> updatePolicies = new ArrayList<>(batch.size());
+        for (PendingUpdate<T> update : batch) {
+            entries.add(update.entry());
+            updatePolicies.add(update.updatePolicy());
+        }
+
+        CompletableFuture<List<T>> result;
+        try {
+            result = flushFunction.apply(entries, updatePolicies);
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+
+        result.whenComplete((values, error) -> {
+            try {
+                for (int i = 0; i < batch.size(); i++) {
+                    if (error != null) {
+                        batch.get(i).future().completeExceptionally(error);
+                    } else {
+                        batch.get(i).future().complete(values.get(i));
+                    }
+                }
+            } finally {
+                onBatchCompleted();
+            }
+        });
+    }
+}
@@ -1,6 +1,10 @@
 local ps = redis.call('zscore', KEYS[1], ARGV[2]);
-if not ps or tonumber(ARGV[1]) > tonumber(ps) then
-    redis.call('zadd', KEYS[1], ARGV[1], ARGV[2])
-    return tonumber(ARGV[1])
+local score = tonumber(ARGV[1])
+if ps then
+    ps = tonumber(ps)
+    if (ARGV[3] == 'asc' and score >= ps) or (ARGV[3] ~= 'asc' and score <= ps) then
+        return ps
+    end
 end
-return tonumber(ps)
\ No newline at end of file
+redis.call('zadd', KEYS[1], ARGV[1], ARGV[2])
+return score
@@ -1,4 +1,13 @@
-return {
-    redis.call('zscore', KEYS[1], ARGV[1]),
-    redis.call('zrank', KEYS[1], ARGV[1])
-}
\ No newline at end of file
+local result = {}
+local rank_command = ARGV[1] == 'low-to-high' and 'zrank' or 'zrevrank'
+for i = 2, #ARGV do
+    local score = redis.call('zscore', KEYS[1], ARGV[i])
+    if score then
+        result[#result + 1] = score
+        result[#result + 1] = redis.call(rank_command, KEYS[1], ARGV[i])
+    else
+        result[#result + 1] = false
+        result[#result + 1] = false
+    end
+end
+return result
@@ -1,6 +1,12 @@
 local c = redis.call('zcard', KEYS[1]);
 local n = tonumber(ARGV[1])
-local dif = c - n
-if dif > 0 then
-    redis.call('zremrangebyrank', KEYS[1], 0, dif - 1)
-end
\ No newline at end of file
+local slack = tonumber(ARGV[3] or '0')
+if c > n + slack then
+    if ARGV[2] == 'low-to-high' then
+        redis.call('zremrangebyrank', KEYS[1], n, -1)
+    else
+        redis.call('zremrangebyrank', KEYS[1], 0, c - n - 1)
+    end
+    return c - n
+end
+return 0
@@ -0,0 +1,22 @@
+-- Returns the number of entries ordered before or at the given score and member,
+-- also when the member has since been removed or rescored.
+local high_to_low = ARGV[1] ~= 'low-to-high'
+local member = ARGV[3]
+local score = redis.call('zscore', KEYS[1], member)
+if score and tonumber(score) == tonumber(ARGV[2]) then
+    return redis.call(high_to_low and 'zrevrank' or 'zrank', KEYS[1], member) + 1
+end
+
+local position
+if high_to_low then
+    position = redis.call('zcount', KEYS[1], '(' .. ARGV[2], '+inf')
+else
+    position = redis.call('zcount', KEYS[1], '-inf', '(' .. ARGV[2])
+end
+-- Equal scores are ordered by member bytes, reversed for high-to-low
+for _, other in ipairs(redis.call('zrangebyscore', KEYS[1], ARGV[2], ARGV[2])) do
+    if (high_to_low and other > member) or (not high_to_low and other < member) then
+        position = position + 1
+    end
+end
+return position
@@ -4,12 +4,34 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
-
+import redis.clients.jedis.Protocol;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -146,6 +168,39 @@ public class LeaderboardTest {
         assertEquals(200, entry.score());
     }
 
+    @Test
+    public void testUpdatePolicyBestLowToHigh() throws ExecutionException, InterruptedException {
+        Leaderboard<Integer> bestLeaderboard = new Leaderboard<>(redisExtension,
+                "test-best-low-to-high-leaderboard",
+                Integer.class,
+                new LeaderboardOptions(SortPolicy.LOW_TO_HIGH, UpdatePolicy.BEST, 100)
+        );
+        bestLeaderboard.clear().get();
+
+        assertEquals(100, bestLeaderboard.updateOne("player1", 100).get());
+        assertEquals(100, bestLeaderboard.updateOne("player1", 150).get());
+        assertEquals(40, bestLeaderboard.updateOne("player1", 40).get());
+
+        List<Integer> results = bestLeaderboard.update(Arrays.asList(
+                new EntryUpdateQuery<>("player1", 60),
+                new EntryUpdateQuery<>("player2", 70)
+        )).get();
+        assertEquals(Arrays.asList(40, 70), results);
+        assertEquals(40, bestLeaderboard.find("player1").score());
+    }
+
+    @Test
+    public void testBestScriptHonorsSortDirection() throws ExecutionException, InterruptedException {
+        String scriptSha = redisExtension.getScriptSha("zbest");
+        RedisTransport transport = redisExtension.getTransport();
+
+        transport.execute(RedisCommand.of(Protocol.Command.EVALSHA, scriptSha, "1", "test-leaderboard", "100", "player1", "asc")).get();
+        assertEquals(100L, transport.execute(RedisCommand.of(Protocol.Command.EVALSHA, scriptSha, "1", "test-leaderboard", "150", "player1", "asc")).get());
+        assertEquals(50L, transport.execute(RedisCommand.of(Protocol.Command.EVALSHA, scriptSha, "1", "test-leaderboard", "50", "player1", "asc")).get());
+        assertEquals(50L, transport.execute(RedisCommand.of(Protocol.Command.EVALSHA, scriptSha, "1", "test-leaderboard", "20", "player1", "desc")).get());
+        assertEquals(80L, transport.execute(RedisCommand.of(Protocol.Command.EVALSHA, scriptSha, "1", "test-leaderboard", "80", "player1", "desc")).get());
+    }
+
     @Test
     public void testUpdatePolicyAggregate() throws ExecutionException, InterruptedException {
         leaderboard.updateOne("player1", 100).get();
@@ -365,4 +420,689 @@ public class LeaderboardTest {
             assertEquals(100, entry.score());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCustomExecutor() throws ExecutionException, InterruptedException {
+        AtomicInteger submitted = new AtomicInteger();
+        Executor executor = command -> {
+            submitted.incrementAndGet();
+            new Thread(command).start();
+        };
+        JedisPool jedisPool = new JedisPool(buildPoolConfig(), "localhost", 6379, 5, null);
+        RedisExtension executorExtension = new RedisExtension(jedisPool, executor);
+        executorExtension.prepare();
+        Leaderboard<Integer> executorLeaderboard = new Leaderboard<>(executorExtension,
+                "test-executor-leaderboard",
+                Integer.class,
+                new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 100)
+        );
+
+        executorLeaderboard.clear().get();
+        executorLeaderboard.updateOne("player1", 100).get();
+        assertEquals(1L, executorLeaderboard.count().get());
+        assertTrue(submitted.get() >= 3);
+        jedisPool.close();
+    }
+
+    @Test
+    public void testUnpreparedExtensionIsRejected() {
+        RedisExtension unprepared = new RedisExtension(new JedisPool(buildPoolConfig(), "localhost", 6379));
+        Leaderboard<Integer> unpreparedLeaderboard = new Leaderboard<>(unprepared, "test-unprepared", Integer.class,
+                new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.BEST, 100));
+
+        assertThrows(IllegalStateException.class, () -> unpreparedLeaderboard.find("player1"));
+        assertThrows(IllegalStateException.class, () -> unpreparedLeaderboard.updateOne("player1", 1));
+    }
+
+    @Test
+    public void testVirtualThreads() throws ExecutionException, InterruptedException {
+        JedisPool jedisPool = new JedisPool(buildPoolConfig(), "localhost", 6379, 5, null);
+        RedisExtension virtualExtension = RedisExtension.withVirtualThreads(jedisPool);
+        virtualExtension.prepare();
+        Leaderboard<Integer> virtualLeaderboard = new Leaderboard<>(virtualExtension,
+                "test-virtual-leaderboard",
+                Integer.class,
+                new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 100)
+        );
+
+        virtualLeaderboard.clear().get();
+        virtualLeaderboard.updateOne("player1", 100).get();
+        assertEquals(1L, virtualLeaderboard.rank("player1").get());
+        jedisPool.close();
+    }
+
+    @Test
+    public void testCoalescedUpdates() throws ExecutionException, InterruptedException {
+        Leaderboard<Integer> coalescing = new Leaderboard<>(redisExtension,
+                "test-coalescing-leaderboard",
+                Integer.class,
+                new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.AGGREGATE, 0)
+                        .withCoalescing(new CoalescingOptions(Duration.ofMillis(5), 64))
+        );
+        coalescing.clear().get();
+
+        assertEquals(10, coalescing.updateOne("player1", 10).get());
+
+        List<CompletableFuture<Integer>> updates = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            updates.add(coalescing.updateOne("player" + (i % 10), 1));
+            updates.add(coalescing.updateOne("replaced" + i, i, UpdatePolicy.REPLACE));
+        }
+        CompletableFuture.allOf(updates.toArray(new CompletableFuture<?>[0])).get();
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(1, updates.get(i * 2 + 1).get());
+        }
+        assertEquals(1010L, coalescing.count().get());
+        assertEquals(110, coalescing.find("player1").score());
+        assertEquals(100, coalescing.find("player2").score());
+        assertEquals(999, coalescing.find("replaced999").score());
+        coalescing.clear().get();
+    }
+
+    @Test
+    public void testScoreAggregator() throws ExecutionException, InterruptedException {
+        Leaderboard<Long> aggregated = new Leaderboard<>(redisExtension,
+                "test-aggregator-leaderboard",
+                Long.class,
+                new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.AGGREGATE, 0)
+        );
+        aggregated.clear().get();
+
+        try (ScoreAggregator<Long> aggregator = aggregated.aggregator(Duration.ofMinutes(1), 1000)) {
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread thread = new Thread(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        aggregator.add("player" + (i % 5), 1L);
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertEquals(5, aggregator.pendingMembers());
+            assertEquals(0L, aggregated.count().get());
+
+            aggregator.flush().get();
+            assertEquals(0, aggregator.pendingMembers());
+            assertEquals(800L, aggregated.find("player0").score());
+
+            aggregator.add("player0", 5L);
+            aggregator.add("player9", 7L);
+        }
+
+        assertEquals(805L, aggregated.find("player0").score());
+        assertEquals(7L, aggregated.find("player9").score());
+        aggregated.clear().get();
+    }
+
+    @Test
+    public void testScoreAggregatorFlushesStaleIncrements() throws ExecutionException, InterruptedException {
+        Leaderboard<Integer> aggregated = new Leaderboard<>(redisExtension,
+                "test-aggregator-stale-leaderboard",
+                Integer.class,
+                new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.AGGREGATE, 0)
+        );
+        aggregated.clear().get();
+
+        try (ScoreAggregator<Integer> aggregator = aggregated.aggregator(Duration.ofMillis(50), 1000)) {
+            aggregator.add("player1", 3);
+            aggregator.add("player1", 4);
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (aggregated.count().get() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(7, aggregated.find("player1").score());
+        }
+        aggregated.clear().get();
+    }
+
+    @Test
+    public void testLimitTopN() throws ExecutionException, InterruptedException {
+        Leaderboard<Integer> highToLow = new Leaderboard<>(redisExtension,
+                "test-limit-high-to-low",
+                Integer.class,
+                new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 3)
+        );
+        Leaderboard<Integer> lowToHigh = new Leaderboard<>(redisExtension,
+                "test-limit-low-to-high",
+                Integer.class,
+                new LeaderboardOptions(SortPolicy.LOW_TO_HIGH, UpdatePolicy.REPLACE, 3)
+        );
+        highToLow.clear().get();
+        lowToHigh.clear().get();
+
+        for (int i = 1; i <= 5; i++) {
+            highToLow.updateOne("player" + i, i * 10).get();
+            lowToHigh.updateOne("player" + i, i * 10).get();
+        }
+
+        assertEquals(3L, highToLow.count().get());
+        assertEquals("player5", highToLow.top(1).get().get(0).id());
+        assertNull(highToLow.find("player1"));
+        assertEquals(3L, lowToHigh.count().get());
+        assertEquals("player1", lowToHigh.top(1).get().get(0).id());
+        assertNull(lowToHigh.find("player5"));
+    }
+
+    @Test
+    public void testLimitTopNWithTrimSlack() throws ExecutionException, InterruptedException {
+        Leaderboard<Integer> slack = new Leaderboard<>(redisExtension,
+                "test-limit-slack",
+                Integer.class,
+                new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 5).withTrimSlack(3)
+        );
+        slack.clear().get();
+
+        for (int i = 1; i <= 8; i++) {
+            slack.updateOne("player" + i, i).get();
+        }
+        assertEquals(8L, slack.count().get());
+
+        slack.updateOne("player9", 9).get();
+        assertEquals(5L, slack.count().get());
+        assertEquals(List.of("player9", "player8", "player7", "player6", "player5"),
+                slack.top(10).get().stream().map(Entry::id).toList());
+
+        List<CompletableFuture<Integer>> updates = new ArrayList<>();
+        for (int i = 10; i < 500; i++) {
+            updates.add(slack.updateOne("player" + i, i));
+        }
+        CompletableFuture.allOf(updates.toArray(new CompletableFuture<?>[0])).get();
+        assertTrue(slack.count().get() <= 8L);
+        assertEquals(499, slack.top(1).get().get(0).score());
+    }
+
+    @Test
+    public void testBulkLookups() throws ExecutionException, InterruptedException {
+        leaderboard.updateOne("player1", 100).get();
+        leaderboard.updateOne("player2", 200).get();
+        leaderboard.updateOne("player3", 150).get();
+
+        assertEquals(Arrays.asList(
+                new Entry<>("player3", 150, 2),
+                null,
+                new Entry<>("player2", 200, 1)), leaderboard.findMany(List.of("player3", "nonexistent", "player2")).get());
+        assertEquals(Arrays.asList(3L, null, 1L), leaderboard.rankMany(List.of("player1", "nonexistent", "player2")).get());
+        assertEquals(Arrays.asList(
+                new Entry<>("player1", 100, 3),
+                null,
+                new Entry<>("player2", 200, 1),
+                null), leaderboard.atMany(3, 0, 1, 4).get());
+
+        assertTrue(leaderboard.findMany(List.of()).get().isEmpty());
+        assertTrue(leaderboard.rankMany(List.of()).get().isEmpty());
+        assertTrue(leaderboard.atMany().get().isEmpty());
+    }
+
+    @Test
+    public void testFindLowToHigh() throws ExecutionException, InterruptedException {
+        Leaderboard<Integer> lowToHigh = new Leaderboard<>(redisExtension,
+                "test-find-low-to-high",
+                Integer.class,
+                new LeaderboardOptions(SortPolicy.LOW_TO_HIGH, UpdatePolicy.REPLACE, 0)
+        );
+        lowToHigh.clear().get();
+        lowToHigh.updateOne("player1", 100).get();
+        lowToHigh.updateOne("player2", 200).get();
+
+        assertEquals(new Entry<>("player1", 100, 1), lowToHigh.find("player1"));
+        assertEquals(new Entry<>("player2", 200, 2), lowToHigh.findMany(List.of("player2")).get().get(0));
+        assertNull(lowToHigh.find("nonexistent"));
+    }
+
+    @Test
+    public void testNearCache() throws ExecutionException, InterruptedException {
+        Leaderboard<Integer> cached = new Leaderboard<>(redisExtension,
+                "test-near-cache",
+                Integer.class,
+                new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 0)
+                        .withNearCache(new NearCacheOptions(5, Duration.ofMillis(100), Duration.ofSeconds(30)))
+        );
+        cached.clear().get();
+        cached.updateOne("player1", 100).get();
+        cached.updateOne("player2", 200).get();
+
+        assertEquals(List.of(new Entry<>("player2", 200, 1), new Entry<>("player1", 100, 2)), cached.top(5).get());
+        assertEquals(new Entry<>("player1", 100, 2), cached.at(2).get());
+        assertNull(cached.at(3).get());
+        assertEquals(1, cached.top(1).get().size());
+
+        NearCacheStats stats = cached.nearCacheStats();
+        assertEquals(1, stats.misses());
+        assertEquals(3, stats.hits());
+        assertEquals(1, stats.refreshes());
+
+        cached.updateOne("player3", 300).get();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!cached.top(1).get().get(0).id().equals("player3")) {
+            assertTrue(System.currentTimeMillis() < deadline, "near-cache was not refreshed in the background");
+            Thread.sleep(20);
+        }
+        assertEquals(new Entry<>("player3", 300, 1), cached.at(1).get());
+        assertEquals(3L, cached.list(1, 10).get().size());
+        assertEquals(1, cached.nearCacheStats().misses());
+        assertTrue(cached.nearCacheStats().refreshes() >= 2);
+        assertNull(leaderboard.nearCacheStats());
+    }
+
+    @Test
+    public void testNearCacheInvalidation() throws ExecutionException, InterruptedException {
+        RedisExtension invalidating = new RedisExtension(new JedisPool(buildPoolConfig(), "localhost", 6379, 1000, null));
+        invalidating.prepare();
+        Leaderboard<Integer> cached;
+        InvalidationChannel.Registration registration;
+        try (InvalidationChannel channel = invalidating.enableInvalidation(true)) {
+            CountDownLatch changed = new CountDownLatch(1);
+            registration = channel.register("test-invalidation-listener", changed::countDown);
+            cached = new Leaderboard<>(invalidating,
+                    "test-invalidation",
+                    Integer.class,
+                    new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 0)
+                            .withNearCache(new NearCacheOptions(5, Duration.ofMillis(50), Duration.ofHours(1)))
+            );
+            cached.clear().get();
+            cached.updateOne("player1", 100).get();
+
+            long deadline = System.currentTimeMillis() + 5000;
+            Leaderboard<Integer> listened = new Leaderboard<>(invalidating,
+                    "test-invalidation-listener",
+                    Integer.class,
+                    new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 0)
+            );
+            while (!changed.await(50, TimeUnit.MILLISECONDS)) {
+                assertTrue(System.currentTimeMillis() < deadline, "keyspace notification was not delivered");
+                listened.updateOne("player1", 1).get();
+            }
+            listened.clear().get();
+            assertTrue(registration.isActive());
+
+            assertEquals(List.of(new Entry<>("player1", 100, 1)), cached.top(5).get());
+            // The acknowledgement of the key's subscription drops the first snapshot once
+            Thread.sleep(200);
+            cached.top(5).get();
+            long refreshes = cached.nearCacheStats().refreshes();
+            Thread.sleep(200);
+            assertEquals(new Entry<>("player1", 100, 1), cached.at(1).get());
+            assertEquals(refreshes, cached.nearCacheStats().refreshes());
+
+            cached.updateOne("player2", 200).get();
+            while (!cached.top(1).get().get(0).id().equals("player2")) {
+                assertTrue(System.currentTimeMillis() < deadline, "near-cache was not invalidated");
+                Thread.sleep(20);
+            }
+        }
+
+        // Without a channel delivering changes the near-cache polls again
+        assertFalse(registration.isActive());
+        assertNull(invalidating.getInvalidationChannel());
+        new Leaderboard<>(invalidating, "test-invalidation", Integer.class,
+                new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 0)).updateOne("player3", 300).get();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!cached.top(1).get().get(0).id().equals("player3")) {
+            assertTrue(System.currentTimeMillis() < deadline, "near-cache did not fall back to polling");
+            Thread.sleep(20);
+        }
+        cached.clear().get();
+    }
+
+    @Test
+    public void testInvalidationLeavesServerConfigUntouchedByDefault() throws InterruptedException {
+        RedisExtension invalidating = new RedisExtension(new JedisPool(buildPoolConfig(), "localhost", 6379, 1000, null));
+        String original;
+        try (Jedis jedis = new Jedis("localhost", 6379)) {
+            original = jedis.configGet("notify-keyspace-events").get("notify-keyspace-events");
+            jedis.configSet("notify-keyspace-events", "");
+        }
+        try (InvalidationChannel channel = invalidating.enableInvalidation()) {
+            InvalidationChannel.Registration registration = channel.register("test-invalidation-config", () -> {
+            });
+            Thread.sleep(300);
+            assertFalse(registration.isActive());
+            try (Jedis jedis = new Jedis("localhost", 6379)) {
+                assertEquals("", jedis.configGet("notify-keyspace-events").get("notify-keyspace-events"));
+            }
+        } finally {
+            try (Jedis jedis = new Jedis("localhost", 6379)) {
+                jedis.configSet("notify-keyspace-events", original);
+            }
+        }
+    }
+
+    @Test
+    public void testBinaryMembers() throws ExecutionException, InterruptedException {
+        byte[] key = {'t', 'e', 's', 't', '-', 'b', 'i', 'n', (byte) 0xFF};
+        Leaderboard<Integer> binary = new Leaderboard<>(redisExtension, key, Integer.class,
+                new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 0));
+        binary.clear().get();
+
+        byte[] player1 = {0, 1, 2, (byte) 0xC0, (byte) 0xFF};
+        byte[] player2 = {(byte) 0x80, 0, 0, 0};
+        binary.updateOne(player1, 100).get();
+        binary.updateBinary(List.of(new BinaryEntryUpdateQuery<>(player2, 200), new BinaryEntryUpdateQuery<>(player1, 50)),
+                UpdatePolicy.AGGREGATE).get();
+
+        assertEquals(2L, binary.rank(player1).get());
+        assertEquals(new BinaryEntry<>(player2.clone(), 200, 1), binary.find(player2));
+        assertNull(binary.find(new byte[]{1}));
+        assertEquals(List.of(new BinaryEntry<>(player2.clone(), 200, 1), new BinaryEntry<>(player1.clone(), 150, 2)),
+                binary.topBinary(10).get());
+
+        binary.remove(player1).get();
+        assertEquals(1L, binary.count().get());
+        binary.clear().get();
+    }
+
+    @Test
+    public void testExportStreamReadAhead() throws ExecutionException, InterruptedException {
+        List<EntryUpdateQuery<Integer>> entries = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            entries.add(new EntryUpdateQuery<>("player" + i, i));
+        }
+        leaderboard.update(entries).get();
+
+        for (int readAhead : new int[]{0, 1, 3, 10}) {
+            List<List<Entry<Integer>>> batches = new ArrayList<>();
+            leaderboard.exportStream(10, readAhead).forEachRemaining(batches::add);
+            assertEquals(5, batches.size());
+            for (int batch = 0; batch < batches.size(); batch++) {
+                assertEquals(10, batches.get(batch).size());
+                for (int i = 0; i < 10; i++) {
+                    int rank = batch * 10 + i + 1;
+                    assertEquals(new Entry<>("player" + (51 - rank), 51 - rank, rank), batches.get(batch).get(i));
+                }
+            }
+        }
+
+        List<List<Entry<Integer>>> batches = new ArrayList<>();
+        leaderboard.exportStream(20).forEachRemaining(batches::add);
+        assertEquals(List.of(20, 20, 10), batches.stream().map(List::size).toList());
+    }
+
+    @Test
+    public void testParallelStream() throws ExecutionException, InterruptedException {
+        List<EntryUpdateQuery<Integer>> entries = new ArrayList<>();
+        for (int i = 1; i <= 95; i++) {
+            entries.add(new EntryUpdateQuery<>("player" + i, i));
+        }
+        leaderboard.update(entries).get();
+
+        List<Entry<Integer>> sequential = leaderboard.stream(10).toList();
+        assertEquals(95, sequential.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(new Entry<>("player" + (95 - i), 95 - i, i + 1), sequential.get(i));
+        }
+
+        assertEquals(sequential, leaderboard.stream(7).parallel().toList());
+        assertEquals(95 * 96 / 2, leaderboard.stream(3).parallel().mapToInt(Entry::score).sum());
+
+        leaderboard.clear().get();
+        assertEquals(0, leaderboard.stream(10).parallel().count());
+    }
+
+    @Test
+    public void testSnapshotExport() throws ExecutionException, InterruptedException {
+        List<EntryUpdateQuery<Integer>> entries = new ArrayList<>();
+        for (int i = 1; i <= 30; i++) {
+            entries.add(new EntryUpdateQuery<>("player" + i, i));
+        }
+        leaderboard.update(entries).get();
+
+        byte[] snapshotKey;
+        try (LeaderboardSnapshot<Integer> snapshot = leaderboard.snapshot(Duration.ofMinutes(1)).get()) {
+            snapshotKey = snapshot.key();
+            try (Jedis jedis = redisExtension.getJedis()) {
+                long ttl = jedis.pttl(snapshotKey);
+                assertTrue(ttl > 0 && ttl <= 60_000);
+            }
+
+            ExportStream<Integer> export = snapshot.exportStream(10);
+            List<Entry<Integer>> exported = new ArrayList<>(export.next());
+            leaderboard.updateOne("player0", 1000).get();
+            leaderboard.remove("player15").get();
+            export.forEachRemaining(exported::addAll);
+
+            assertEquals(30, exported.size());
+            for (int i = 0; i < exported.size(); i++) {
+                assertEquals(new Entry<>("player" + (30 - i), 30 - i, i + 1), exported.get(i));
+            }
+            assertEquals(exported, snapshot.stream(4).parallel().toList());
+            assertEquals(30L, snapshot.count().get());
+        }
+
+        try (Jedis jedis = redisExtension.getJedis()) {
+            assertFalse(jedis.exists(snapshotKey));
+        }
+        assertEquals(30L, leaderboard.count().get());
+    }
+
+    @Test
+    public void testResumeExportFromCheckpoint() throws ExecutionException, InterruptedException {
+        List<EntryUpdateQuery<Integer>> entries = new ArrayList<>();
+        for (int i = 1; i <= 30; i++) {
+            entries.add(new EntryUpdateQuery<>("player" + i, i));
+        }
+        leaderboard.update(entries).get();
+
+        ExportStream<Integer> export = leaderboard.exportStream(10);
+        assertTrue(export.checkpoint().isStart());
+        export.next();
+        String token = export.checkpoint().toToken();
+        assertEquals(export.checkpoint(), ExportCheckpoint.parse(token));
+        assertEquals(11, ExportCheckpoint.parse(token).nextRank());
+
+        // Entries moving above the checkpoint must not shift the resumed export
+        leaderboard.updateOne("newcomer", 1000).get();
+        leaderboard.remove("player25").get();
+        List<String> resumed = new ArrayList<>();
+        leaderboard.resumeExport(ExportCheckpoint.parse(token), 7).forEachRemaining(batch -> batch.forEach(e -> resumed.add(e.id())));
+        List<String> expected = new ArrayList<>();
+        for (int i = 20; i >= 1; i--) {
+            expected.add("player" + i);
+        }
+        assertEquals(expected, resumed);
+
+        // The last exported entry itself is gone, or tied with others
+        leaderboard.remove("player21").get();
+        leaderboard.updateOne("player19b", 19).get();
+        List<String> afterRemoval = new ArrayList<>();
+        leaderboard.resumeExport(ExportCheckpoint.parse(token), 10, 0).forEachRemaining(batch -> batch.forEach(e -> afterRemoval.add(e.id())));
+        expected.add(1, "player19b");
+        assertEquals(expected, afterRemoval);
+
+        assertThrows(IllegalArgumentException.class, () -> ExportCheckpoint.parse("AQ"));
+        Leaderboard<Integer> other = new Leaderboard<>(redisExtension, "test-leaderboard-other", Integer.class,
+                new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 0));
+        assertThrows(IllegalArgumentException.class, () -> other.resumeExport(ExportCheckpoint.parse(token), 10));
+    }
+
+    @Test
+    public void testResumeExportAfterFractionalScore() throws ExecutionException, InterruptedException {
+        // Scores written by other clients need not be whole numbers on an integer leaderboard
+        redisExtension.getTransport().execute(RedisCommand.of(Protocol.Command.ZADD, "test-leaderboard",
+                "10.4", "a", "10.2", "b", "10", "c")).get();
+
+        ExportStream<Integer> export = leaderboard.exportStream(1);
+        assertEquals("a", export.next().get(0).id());
+        List<String> resumed = new ArrayList<>();
+        leaderboard.resumeExport(export.checkpoint(), 1).forEachRemaining(batch -> batch.forEach(e -> resumed.add(e.id())));
+        assertEquals(List.of("b", "c"), resumed);
+    }
+
+    @Test
+    public void testResumeSnapshotExport() throws ExecutionException, InterruptedException {
+        List<EntryUpdateQuery<Integer>> entries = new ArrayList<>();
+        for (int i = 1; i <= 25; i++) {
+            entries.add(new EntryUpdateQuery<>("player" + i, i));
+        }
+        leaderboard.update(entries).get();
+
+        String token;
+        List<Entry<Integer>> exported = new ArrayList<>();
+        try (LeaderboardSnapshot<Integer> snapshot = leaderboard.snapshot(Duration.ofMinutes(1)).get()) {
+            ExportStream<Integer> export = snapshot.exportStream(10);
+            exported.addAll(export.next());
+            token = export.checkpoint().toToken();
+
+            leaderboard.updateOne("player30", 30).get();
+            leaderboard.resumeExport(ExportCheckpoint.parse(token), 10).forEachRemaining(exported::addAll);
+            assertEquals(25, exported.size());
+            for (int i = 0; i < exported.size(); i++) {
+                assertEquals(new Entry<>("player" + (25 - i), 25 - i, i + 1), exported.get(i));
+            }
+        }
+        assertThrows(IllegalStateException.class, () -> leaderboard.resumeExport(ExportCheckpoint.parse(token), 10));
+    }
+
+    @Test
+    public void testAsyncPageIterator() throws ExecutionException, InterruptedException {
+        List<EntryUpdateQuery<Integer>> entries = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            entries.add(new EntryUpdateQuery<>("player" + i, i));
+        }
+        leaderboard.update(entries).get();
+
+        AsyncPageIterator<Integer> pages = leaderboard.exportAsync(10, 1);
+        CompletableFuture<List<Entry<Integer>>> first = pages.next();
+        CompletableFuture<List<Entry<Integer>>> second = pages.next();
+        assertEquals(new Entry<>("player20", 20, 1), first.get().get(0));
+        assertEquals(new Entry<>("player10", 10, 11), second.get().get(0));
+        assertNull(pages.next().get());
+        assertNull(pages.next().get());
+    }
+
+    @Test
+    public void testExportPublisherBackpressure() throws Exception {
+        List<EntryUpdateQuery<Integer>> entries = new ArrayList<>();
+        for (int i = 1; i <= 25; i++) {
+            entries.add(new EntryUpdateQuery<>("player" + i, i));
+        }
+        leaderboard.update(entries).get();
+
+        List<Entry<Integer>> received = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        AtomicReference<Flow.Subscription> subscription = new AtomicReference<>();
+        leaderboard.exportPublisher(10, 1).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription.set(s);
+            }
+
+            @Override
+            public void onNext(Entry<Integer> item) {
+                received.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+
+        Thread.sleep(50);
+        assertTrue(received.isEmpty());
+        subscription.get().request(3);
+        long deadline = System.currentTimeMillis() + 2000;
+        while (received.size() < 3) {
+            assertTrue(System.currentTimeMillis() < deadline, "requested entries were not delivered");
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        assertEquals(3, received.size());
+        assertFalse(done.isDone());
+
+        subscription.get().request(Long.MAX_VALUE);
+        done.get(2, TimeUnit.SECONDS);
+        assertEquals(25, received.size());
+        for (int i = 0; i < received.size(); i++) {
+            assertEquals(new Entry<>("player" + (25 - i), 25 - i, i + 1), received.get(i));
+        }
+    }
+
+    @Test
+    public void testDumpAndRestore(@TempDir Path directory) throws Exception {
+        List<EntryUpdateQuery<Integer>> entries = new ArrayList<>();
+        for (int i = 1; i <= 25_000; i++) {
+            entries.add(new EntryUpdateQuery<>("player-" + i, i % 977 - 300));
+        }
+        // Pipelines of large pages need more than the 5ms socket timeout of the shared pool
+        RedisExtension bulkExtension = new RedisExtension(new JedisPool(buildPoolConfig(), "localhost", 6379));
+        bulkExtension.prepare();
+        Leaderboard<Integer> source = new Leaderboard<>(bulkExtension, "test-dump-source", Integer.class,
+                new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 0));
+        source.clear().get();
+        source.update(entries).get();
+
+        Path file = directory.resolve("leaderboard.dump");
+        assertEquals(25_000L, source.dump(file));
+        assertTrue(Files.size(file) < 25_000L * 10, "dump is not compressed");
+
+        Leaderboard<Integer> target = new Leaderboard<>(bulkExtension, "test-dump-target", Integer.class,
+                new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 0));
+        target.updateOne("stale", 1_000_000).get();
+        assertEquals(25_000L, target.restore(file));
+        assertEquals(25_000L, target.count().get());
+        assertEquals(source.list(1, 25_000).get(), target.list(1, 25_000).get());
+        assertEquals(-1L, bulkExtension.getTransport().execute(RedisCommand.of(Protocol.Command.PTTL, "test-dump-target")).get());
+
+        byte[] corrupted = Files.readAllBytes(file);
+        corrupted[corrupted.length / 2] ^= 0x55;
+        Path corruptedFile = directory.resolve("corrupted.dump");
+        Files.write(corruptedFile, corrupted);
+        target.clear().get();
+        target.updateOne("kept", 1).get();
+        assertThrows(IOException.class, () -> target.restore(corruptedFile));
+        assertEquals(List.of(new Entry<>("kept", 1, 1)), target.top(10).get());
+        assertEquals(List.of(), bulkExtension.getTransport().execute(
+                RedisCommand.of(Protocol.Command.KEYS, "test-dump-target:restore:*")).get());
+
+        source.clear().get();
+        assertEquals(0L, source.dump(file));
+        assertEquals(0L, target.restore(file));
+        assertEquals(0L, target.count().get());
+    }
+
+    @Test
+    public void testExportText() throws Exception {
+        leaderboard.updateOne("plain", 300).get();
+        leaderboard.updateOne("comma,\"quote\"", 200).get();
+        leaderboard.updateOne("line\nbreak\\ż", 100).get();
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        assertEquals(3L, leaderboard.exportText(csv, TextFormat.CSV, false));
+        assertEquals("rank,id,score\n1,plain,300\n2,\"comma,\"\"quote\"\"\",200\n3,\"line\nbreak\\ż\",100\n",
+                csv.toString(StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream jsonLines = new ByteArrayOutputStream();
+        assertEquals(3L, leaderboard.exportText(jsonLines, TextFormat.JSON_LINES, false));
+        assertEquals("{\"rank\":1,\"id\":\"plain\",\"score\":300}\n"
+                        + "{\"rank\":2,\"id\":\"comma,\\\"quote\\\"\",\"score\":200}\n"
+                        + "{\"rank\":3,\"id\":\"line\\u000abreak\\\\ż\",\"score\":100}\n",
+                jsonLines.toString(StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        leaderboard.exportText(gzipped, TextFormat.JSON_LINES, true);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.toByteArray()))) {
+            assertEquals(jsonLines.toString(StandardCharsets.UTF_8), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        // Closing the gzip stream must leave the caller's channel open
+        ByteArrayOutputStream gzippedChannel = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(gzippedChannel);
+        leaderboard.exportText(channel, TextFormat.CSV, true);
+        assertTrue(channel.isOpen());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzippedChannel.toByteArray()))) {
+            assertEquals(csv.toString(StandardCharsets.UTF_8), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MemberCodecTest {
+
+    private static final long[] IDS = {0, 1, -1, 63, 64, -64, -65, 127, 128, 300, 123456789012345L, Long.MAX_VALUE, Long.MIN_VALUE};
+
+    private static RedisExtension redisExtension;
+
+    @BeforeAll
+    public static void setUp() {
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(10);
+        JedisPool jedisPool = new JedisPool(poolConfig, "localhost", 6379, 1000, null);
+        redisExtension = new RedisExtension(jedisPool);
+        redisExtension.prepare();
+    }
+
+    @Test
+    public void testRoundTrips() {
+        for (MemberCodec codec : List.of(MemberCodec.UTF8, MemberCodec.FIXED_64, MemberCodec.VARINT)) {
+            for (long id : IDS) {
+                String text = Long.toString(id);
+                assertEquals(text, codec.decode(codec.encode(text)), text);
+            }
+        }
+        assertEquals("gracz-żółw", MemberCodec.UTF8.decode(MemberCodec.UTF8.encode("gracz-żółw")));
+    }
+
+    @Test
+    public void testEncodedSizes() {
+        assertEquals(8, MemberCodec.FIXED_64.encode("1").length);
+        assertEquals(1, MemberCodec.VARINT.encode("63").length);
+        assertEquals(2, MemberCodec.VARINT.encode("64").length);
+        assertEquals(7, MemberCodec.VARINT.encode("123456789012345").length);
+        assertEquals(10, MemberCodec.VARINT.encode(Long.toString(Long.MIN_VALUE)).length);
+    }
+
+    @Test
+    public void testFixedEncodingKeepsNumericOrder() {
+        for (int i = 1; i < IDS.length; i++) {
+            long a = IDS[i - 1];
+            long b = IDS[i];
+            int bytes = java.util.Arrays.compareUnsigned(MemberCodec.FIXED_64.encode(Long.toString(a)), MemberCodec.FIXED_64.encode(Long.toString(b)));
+            assertEquals(Integer.signum(Long.compare(a, b)), Integer.signum(bytes), a + " vs " + b);
+        }
+    }
+
+    @Test
+    public void testRejectsInvalidIds() {
+        assertThrows(IllegalArgumentException.class, () -> MemberCodec.FIXED_64.encode("player1"));
+        assertThrows(IllegalArgumentException.class, () -> MemberCodec.VARINT.encode("12a"));
+        assertThrows(IllegalArgumentException.class, () -> MemberCodec.FIXED_64.decode(new byte[3]));
+    }
+
+    @Test
+    public void testLeaderboardWithCodec() throws ExecutionException, InterruptedException {
+        for (MemberCodec codec : List.of(MemberCodec.FIXED_64, MemberCodec.VARINT)) {
+            Leaderboard<Integer> leaderboard = new Leaderboard<>(redisExtension, "test-member-codec", Integer.class,
+                    new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 0).withMemberCodec(codec));
+            leaderboard.clear().get();
+
+            leaderboard.updateOne("1001", 10).get();
+            leaderboard.update(List.of(new EntryUpdateQuery<>("1002", 30), new EntryUpdateQuery<>("-5", 20))).get();
+
+            assertEquals(List.of(
+                    new Entry<>("1002", 30, 1),
+                    new Entry<>("-5", 20, 2),
+                    new Entry<>("1001", 10, 3)), leaderboard.top(10).get());
+            assertEquals(new Entry<>("-5", 20, 2), leaderboard.find("-5"));
+            assertEquals(3L, leaderboard.rank("1001").get());
+
+            leaderboard.remove("1001").get();
+            assertEquals(2L, leaderboard.count().get());
+            leaderboard.clear().get();
+        }
+    }
+}
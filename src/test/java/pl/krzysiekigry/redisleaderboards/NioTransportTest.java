@@ -0,0 +1,182 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class NioTransportTest {
+
+    private NioTransport transport;
+    private RedisExtension redisExtension;
+    private Leaderboard<Integer> leaderboard;
+
+    @BeforeAll
+    public void setUpClass() {
+        transport = new NioTransport("localhost", 6379, 2);
+        redisExtension = new RedisExtension(transport);
+        redisExtension.prepare();
+    }
+
+    @AfterAll
+    public void tearDownClass() {
+        transport.close();
+    }
+
+    @BeforeEach
+    public void setUp() throws ExecutionException, InterruptedException {
+        leaderboard = new Leaderboard<>(redisExtension,
+                "test-nio-leaderboard",
+                Integer.class,
+                new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 100)
+        );
+        leaderboard.clear().get();
+    }
+
+    @Test
+    public void testLeaderboardOperations() throws ExecutionException, InterruptedException {
+        leaderboard.updateOne("player1", 100).get();
+        leaderboard.updateOne("player2", 200).get();
+        leaderboard.updateOne("player3", 150).get();
+
+        assertEquals(3L, leaderboard.count().get());
+        assertEquals(1L, leaderboard.rank("player2").get());
+        assertNull(leaderboard.rank("nonexistent").get());
+
+        List<Entry<Integer>> top = leaderboard.top(3).get();
+        assertEquals(List.of(
+                new Entry<>("player2", 200, 1),
+                new Entry<>("player3", 150, 2),
+                new Entry<>("player1", 100, 3)), top);
+
+        Entry<Integer> entry = leaderboard.find("player3");
+        assertEquals(new Entry<>("player3", 150, 2), entry);
+
+        List<Entry<Integer>> bottom = leaderboard.bottom(2).get();
+        assertEquals("player1", bottom.get(0).id());
+        assertEquals(3L, bottom.get(0).rank());
+
+        leaderboard.remove("player1", "player2").get();
+        assertEquals(1L, leaderboard.count().get());
+    }
+
+    @Test
+    public void testManyConcurrentCommands() throws ExecutionException, InterruptedException {
+        Leaderboard<Integer> unlimited = new Leaderboard<>(redisExtension,
+                "test-nio-concurrent",
+                Integer.class,
+                new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 0)
+        );
+        unlimited.clear().get();
+
+        List<CompletableFuture<Integer>> updates = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            updates.add(unlimited.updateOne("player" + i, i));
+        }
+        CompletableFuture.allOf(updates.toArray(new CompletableFuture<?>[0])).get();
+
+        assertEquals(5000L, unlimited.count().get());
+        assertEquals(new Entry<>("player4999", 4999, 1), unlimited.at(1).get());
+        unlimited.clear().get();
+    }
+
+    @Test
+    public void testLargeReply() throws ExecutionException, InterruptedException {
+        Leaderboard<Integer> large = new Leaderboard<>(redisExtension,
+                "test-nio-large",
+                Integer.class,
+                new LeaderboardOptions(SortPolicy.LOW_TO_HIGH, UpdatePolicy.REPLACE, 0)
+        );
+        large.clear().get();
+
+        List<EntryUpdateQuery<Integer>> updates = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            updates.add(new EntryUpdateQuery<>("member-with-a-reasonably-long-identifier-" + i, i));
+        }
+        large.update(updates).get();
+
+        List<Entry<Integer>> all = large.list(1, 20000).get();
+        assertEquals(20000, all.size());
+        assertEquals(19999, all.get(19999).score());
+        assertEquals(20000L, all.get(19999).rank());
+        large.clear().get();
+    }
+
+    @Test
+    public void testPipelineReportsErrorsInPlace() throws ExecutionException, InterruptedException {
+        List<Object> results = transport.pipeline(List.of(
+                RedisCommand.of(Protocol.Command.ZADD, "test-nio-leaderboard", "1", "player1"),
+                RedisCommand.of(Protocol.Command.ZADD, "test-nio-leaderboard", "not-a-number", "player2"),
+                RedisCommand.of(Protocol.Command.ZCARD, "test-nio-leaderboard")
+        )).get();
+
+        assertEquals(1L, results.get(0));
+        assertInstanceOf(JedisDataException.class, results.get(1));
+        assertEquals(1L, results.get(2));
+
+        ExecutionException error = assertThrows(ExecutionException.class, () ->
+                transport.execute(RedisCommand.of(Protocol.Command.ZADD, "test-nio-leaderboard", "x", "y")).get());
+        assertInstanceOf(JedisDataException.class, error.getCause());
+    }
+
+    @Test
+    public void testClosedTransportFailsCommands() {
+        NioTransport closed = new NioTransport("localhost", 6379);
+        closed.close();
+
+        assertThrows(ExecutionException.class, () ->
+                closed.execute(RedisCommand.of(Protocol.Command.PING)).get());
+    }
+
+    @Test
+    public void testConnectionErrorsFailTheFuture() {
+        NioTransport unresolved = new NioTransport("unresolved.invalid", 6379);
+        try {
+            CompletableFuture<Object> ping = assertDoesNotThrow(() -> unresolved.execute(RedisCommand.of(Protocol.Command.PING)));
+            ExecutionException error = assertThrows(ExecutionException.class, () -> ping.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(JedisConnectionException.class, error.getCause());
+
+            CompletableFuture<List<Object>> pipeline = assertDoesNotThrow(() -> unresolved.pipeline(List.of(
+                    RedisCommand.of(Protocol.Command.PING))));
+            assertThrows(ExecutionException.class, () -> pipeline.get(5, TimeUnit.SECONDS));
+        } finally {
+            unresolved.close();
+        }
+    }
+
+    @Test
+    public void testStalledServerTimesOutPendingCommands() throws IOException {
+        // accepted by the backlog, but never answered
+        try (ServerSocket stalled = new ServerSocket(0)) {
+            NioTransport timed = new NioTransport("localhost", stalled.getLocalPort(), 1, null, Duration.ofMillis(200));
+            try {
+                CompletableFuture<Object> ping = timed.execute(RedisCommand.of(Protocol.Command.PING));
+                CompletableFuture<List<Object>> pipeline = timed.pipeline(List.of(
+                        RedisCommand.of(Protocol.Command.PING),
+                        RedisCommand.of(Protocol.Command.PING)));
+
+                ExecutionException error = assertThrows(ExecutionException.class, () -> ping.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(JedisConnectionException.class, error.getCause());
+                assertThrows(ExecutionException.class, () -> pipeline.get(5, TimeUnit.SECONDS));
+            } finally {
+                timed.close();
+            }
+        }
+    }
+}
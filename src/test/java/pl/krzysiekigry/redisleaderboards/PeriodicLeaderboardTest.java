@@ -4,12 +4,29 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Protocol;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.WeekFields;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -368,10 +385,363 @@ public class PeriodicLeaderboardTest {
         
         // Test that the update policy is inherited
         lb.updateOne("player1", 100).get();
-        lb.updateOne("player1", 200).get(); // Should update to 200 (better for LOW_TO_HIGH is lower, but BEST means higher value)
-        lb.updateOne("player1", 50).get();  // Should not update (50 < 200)
+        lb.updateOne("player1", 200).get(); // Should not update (lower is better for LOW_TO_HIGH)
+        lb.updateOne("player1", 50).get();  // Should update to 50
         
         Entry<Integer> entry = lb.find("player1");
-        assertEquals(200, entry.score());
+        assertEquals(50, entry.score());
+    }
+
+    @Test
+    public void testMultiCycleFanOut() throws ExecutionException, InterruptedException {
+        LocalDateTime fixedTime = LocalDateTime.of(2024, 12, 25, 14, 30, 45);
+        CycleFunction allTime = time -> "all";
+        MultiCycleLeaderboard<Integer> multi = new MultiCycleLeaderboard<>(redisExtension, "test-multi", Integer.class,
+                new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.AGGREGATE, 2),
+                List.of(DefaultCycles.DAILY, DefaultCycles.MONTHLY, allTime), () -> fixedTime);
+        List<Leaderboard<Integer>> leaderboards = multi.getLeaderboardsNow();
+        assertEquals(3, leaderboards.size());
+        for (Leaderboard<Integer> leaderboard : leaderboards) {
+            leaderboard.clear().get();
+        }
+
+        multi.updateOne("player1", 10).get();
+        multi.update(List.of(new EntryUpdateQuery<>("player1", 5), new EntryUpdateQuery<>("player2", 20),
+                new EntryUpdateQuery<>("player3", 1))).get();
+
+        assertEquals("y2024-m12", multi.getCycles().get(1).getKey(fixedTime));
+        for (Leaderboard<Integer> leaderboard : leaderboards) {
+            assertEquals(List.of(new Entry<>("player2", 20, 1), new Entry<>("player1", 15, 2)), leaderboard.top(10).get());
+            leaderboard.clear().get();
+        }
+        assertSame(leaderboards.get(2), multi.getCycles().get(2).getLeaderboard("all"));
+    }
+
+    @Test
+    public void testCurrentCycleIsMemoizedUntilBoundary() {
+        AtomicReference<LocalDateTime> now = new AtomicReference<>(LocalDateTime.of(2024, 12, 29, 23, 59, 59));
+        PeriodicLeaderboard<Integer> weekly = new PeriodicLeaderboard<>(redisExtension, "test-memo", Integer.class,
+                new PeriodicLeaderboardOptions(new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 0),
+                        DefaultCycles.WEEKLY, now::get));
+
+        Leaderboard<Integer> sunday = weekly.getLeaderboardNow();
+        assertEquals("w0052", weekly.getKeyNow());
+        now.set(LocalDateTime.of(2024, 12, 23, 0, 0));
+        assertSame(sunday, weekly.getLeaderboardNow());
+
+        now.set(LocalDateTime.of(2024, 12, 30, 0, 0));
+        Leaderboard<Integer> monday = weekly.getLeaderboardNow();
+        assertNotSame(sunday, monday);
+        assertEquals("w0001", weekly.getKeyNow());
+        assertEquals("w0052", weekly.getKey(LocalDateTime.of(2024, 12, 29, 12, 0)));
+        assertSame(monday, weekly.getLeaderboardNow());
+    }
+
+    @Test
+    public void testCycleKeysMatchFormatting() {
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            LocalDateTime time = LocalDateTime.of(1990 + random.nextInt(80), 1 + random.nextInt(12), 1 + random.nextInt(28),
+                    random.nextInt(24), random.nextInt(60), random.nextInt(60));
+            String yearly = String.format("y%d", time.getYear());
+            String daily = String.format("%s-m%02d-d%02d", yearly, time.getMonthValue(), time.getDayOfMonth());
+            String minute = String.format("%s-h%02d-m%02d", daily, time.getHour(), time.getMinute());
+            String weekly = String.format("w%04d", time.get(WeekFields.ISO.weekOfWeekBasedYear()));
+            assertEquals(minute, periodicLeaderboard.getKey(time));
+            assertEquals(weekly, new PeriodicLeaderboard<>(redisExtension, "test-weekly", Integer.class,
+                    new PeriodicLeaderboardOptions(new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 0),
+                            DefaultCycles.WEEKLY)).getKey(time));
+        }
+    }
+
+    @Test
+    public void testLeaderboardCacheIsBoundedAndFrequencyAware() throws Exception {
+        PeriodicLeaderboard<Integer> cached = new PeriodicLeaderboard<>(redisExtension, "test-cache", Integer.class,
+                new PeriodicLeaderboardOptions(new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 0),
+                        DefaultCycles.DAILY).withCacheCapacity(10));
+
+        Leaderboard<Integer> hot = cached.getLeaderboard("hot");
+        for (int i = 0; i < 20; i++) {
+            assertSame(hot, cached.getLeaderboard("hot"));
+        }
+        for (int i = 0; i < 100; i++) {
+            cached.getLeaderboard("cold" + i);
+            assertSame(hot, cached.getLeaderboard("hot"));
+        }
+
+        LeaderboardCacheStats stats = cached.cacheStats();
+        assertEquals(10, stats.size());
+        assertEquals(101, stats.misses());
+        assertEquals(91, stats.evictions());
+        assertEquals(120, stats.hits());
+        assertEquals(120.0 / 221, stats.hitRate(), 1e-9);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Set<Leaderboard<Integer>> instances = ConcurrentHashMap.newKeySet();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        instances.add(cached.getLeaderboard("shared"));
+                        cached.getLeaderboard("key" + (i % 5));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            assertEquals(1, instances.size());
+            assertTrue(cached.cacheStats().size() <= 10);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCycleRegistry() throws ExecutionException, InterruptedException {
+        PeriodicLeaderboard<Integer> daily = new PeriodicLeaderboard<>(redisExtension, "test-registry", Integer.class,
+                new PeriodicLeaderboardOptions(new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 0),
+                        DefaultCycles.DAILY));
+        for (String key : daily.getExistingKeys()) {
+            daily.getLeaderboard(key).clear().get();
+        }
+        assertEquals(0, daily.countKeys());
+
+        LocalDateTime first = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (int day = 0; day < 10; day++) {
+            daily.getLeaderboardAt(first.plusDays(day)).updateOne("player1", day).get();
+        }
+        daily.getLeaderboard("y2024-m02-d01").updateOne("player1", 100).get();
+        // Cycles that were looked up but never written to are not registered
+        daily.getLeaderboardAt(first.plusYears(1));
+
+        assertEquals(11, daily.countKeys());
+        assertEquals(11, daily.getExistingKeys().size());
+        assertEquals(List.of("y2024-m01-d05", "y2024-m01-d06", "y2024-m01-d07"),
+                daily.getKeysBetween(LocalDateTime.of(2024, 1, 5, 0, 0), LocalDateTime.of(2024, 1, 8, 0, 0)));
+        assertEquals(3, daily.countKeysBetween(LocalDateTime.of(2024, 1, 5, 0, 0), LocalDateTime.of(2024, 1, 8, 0, 0)));
+        assertEquals(List.of("y2024-m01-d10", "y2024-m02-d01"),
+                daily.getKeysBetween(LocalDateTime.of(2024, 1, 10, 0, 0), LocalDateTime.of(2024, 3, 1, 0, 0)));
+
+        daily.getLeaderboard("y2024-m01-d05").clear().get();
+        assertEquals(10, daily.countKeys());
+        assertFalse(daily.getExistingKeys().contains("y2024-m01-d05"));
+    }
+
+    @Test
+    public void testRetentionExpiresAndSweepsPastCycles() throws ExecutionException, InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        LeaderboardOptions leaderboardOptions = new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 0);
+        PeriodicLeaderboardOptions options = new PeriodicLeaderboardOptions(leaderboardOptions, DefaultCycles.HOURLY, () -> now);
+        PeriodicLeaderboard<Integer> unlimited = new PeriodicLeaderboard<>(redisExtension, "test-retention", Integer.class, options);
+        for (String key : unlimited.getExistingKeys()) {
+            unlimited.getLeaderboard(key).clear().get();
+        }
+
+        // Cycles written before retention was enabled carry no expiry
+        unlimited.getLeaderboardAt(now.minusHours(5)).updateOne("player1", 1).get();
+        unlimited.getLeaderboardAt(now.minusHours(1)).updateOne("player1", 2).get();
+
+        try (PeriodicLeaderboard<Integer> retained = new PeriodicLeaderboard<>(redisExtension, "test-retention", Integer.class,
+                options.withRetention(new RetentionOptions(2, Duration.ofHours(1))))) {
+            retained.getLeaderboardNow().updateOne("player1", 3).get();
+            long ttl = (Long) redisExtension.getTransport().execute(
+                    RedisCommand.of(Protocol.Command.TTL, "test-retention:" + retained.getKeyNow())).get();
+            assertTrue(ttl > 0 && ttl <= 3 * 3600, "ttl " + ttl);
+
+            assertEquals(1, retained.sweepExpiredCycles().get());
+            assertEquals(0, retained.sweepExpiredCycles().get());
+            assertEquals(Set.of(retained.getKey(now.minusHours(1)), retained.getKeyNow()), retained.getExistingKeys());
+            assertEquals(0L, redisExtension.getTransport().execute(
+                    RedisCommand.of(Protocol.Command.EXISTS, "test-retention:" + retained.getKey(now.minusHours(5)))).get());
+        }
+
+        assertThrows(IllegalStateException.class, unlimited::sweepExpiredCycles);
+        assertThrows(IllegalArgumentException.class, () -> new PeriodicLeaderboardOptions(leaderboardOptions,
+                (CycleFunction) time -> "custom").withRetention(new RetentionOptions(1)));
+    }
+
+    @Test
+    public void testRetentionIsScopedToItsCycle() throws ExecutionException, InterruptedException {
+        AtomicReference<LocalDateTime> clock = new AtomicReference<>(LocalDateTime.now().minusHours(5));
+        LeaderboardOptions leaderboardOptions = new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.AGGREGATE, 0);
+        MultiCycleLeaderboard<Integer> multi = new MultiCycleLeaderboard<>(redisExtension, "test-multi-retention", Integer.class, List.of(
+                new PeriodicLeaderboardOptions(leaderboardOptions, DefaultCycles.HOURLY, clock::get)
+                        .withRetention(new RetentionOptions(2, Duration.ofHours(1))),
+                new PeriodicLeaderboardOptions(leaderboardOptions, DefaultCycles.MONTHLY, clock::get)));
+        PeriodicLeaderboard<Integer> hourly = multi.getCycles().get(0);
+        PeriodicLeaderboard<Integer> monthly = multi.getCycles().get(1);
+        for (PeriodicLeaderboard<Integer> cycle : multi.getCycles()) {
+            for (String key : cycle.getExistingKeys()) {
+                cycle.getLeaderboard(key).clear().get();
+            }
+        }
+
+        multi.updateOne("player1", 1).get();
+        clock.set(clock.get().plusHours(5));
+        multi.updateOne("player1", 2).get();
+
+        try {
+            assertEquals(1, hourly.sweepExpiredCycles().get());
+            assertEquals(Set.of(hourly.getKeyNow()), hourly.getExistingKeys());
+            assertTrue(monthly.getExistingKeys().contains(monthly.getKeyNow()));
+            assertFalse(monthly.getExistingKeys().contains(hourly.getKeyNow()));
+            assertEquals(1L, redisExtension.getTransport().execute(
+                    RedisCommand.of(Protocol.Command.EXISTS, "test-multi-retention:" + monthly.getKeyNow())).get());
+        } finally {
+            hourly.close();
+        }
+    }
+
+    @Test
+    public void testClosingMultiCycleLeaderboardStopsSweepers() throws InterruptedException {
+        AtomicInteger clockReads = new AtomicInteger();
+        NowFunction clock = () -> {
+            clockReads.incrementAndGet();
+            return LocalDateTime.now();
+        };
+        LeaderboardOptions leaderboardOptions = new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.AGGREGATE, 0);
+        MultiCycleLeaderboard<Integer> multi = new MultiCycleLeaderboard<>(redisExtension, "test-multi-close", Integer.class, List.of(
+                new PeriodicLeaderboardOptions(leaderboardOptions, DefaultCycles.HOURLY, clock)
+                        .withRetention(new RetentionOptions(2, Duration.ofMillis(20))),
+                new PeriodicLeaderboardOptions(leaderboardOptions, DefaultCycles.DAILY, clock)
+                        .withRetention(new RetentionOptions(2, Duration.ofMillis(20)))));
+
+        // Every sweep reads the clock to find the cutoff
+        long deadline = System.currentTimeMillis() + 5000;
+        while (clockReads.get() < 4) {
+            assertTrue(System.currentTimeMillis() < deadline, "sweepers did not run");
+            Thread.sleep(10);
+        }
+        multi.close();
+        Thread.sleep(100);
+        int reads = clockReads.get();
+        Thread.sleep(200);
+        assertEquals(reads, clockReads.get());
+    }
+
+    @Test
+    public void testRetentionFollowsTheZoneOfTheClock() throws ExecutionException, InterruptedException {
+        // A clock as far from the JVM zone as possible, so a zone mix-up moves the expiry by many hours
+        ZoneId zone = ZoneId.of(ZoneId.systemDefault().getRules().getOffset(Instant.now()).getTotalSeconds() > 0
+                ? "Etc/GMT+12" : "Pacific/Kiritimati");
+        try (PeriodicLeaderboard<Integer> hourly = new PeriodicLeaderboard<>(redisExtension, "test-retention-zone", Integer.class,
+                new PeriodicLeaderboardOptions(new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 0),
+                        DefaultCycles.HOURLY, () -> LocalDateTime.now(zone)).withRetention(new RetentionOptions(2, Duration.ofHours(1))))) {
+            Leaderboard<Integer> current = hourly.getLeaderboardNow();
+            current.updateOne("player1", 1).get();
+
+            long ttl = (Long) redisExtension.getTransport().execute(
+                    new RedisCommand(Protocol.Command.TTL, current.keyBytes())).get();
+            assertTrue(ttl > 2 * 3600 && ttl <= 3 * 3600, "ttl " + ttl);
+            assertEquals(1, current.count().get());
+            current.clear().get();
+        }
+    }
+
+    @Test
+    public void testRegistryTakesInCyclesWrittenBeforeIt() throws ExecutionException, InterruptedException {
+        RedisTransport transport = redisExtension.getTransport();
+        transport.execute(RedisCommand.of(Protocol.Command.DEL, "test-legacy#cycles:hourly", "test-legacy#cycles:hourly:seeded",
+                "test-legacy:y2023-m01-d01-h05", "test-legacy:y2023-m01")).get();
+        // Cycles of two periodic leaderboards written before the registry existed
+        transport.execute(RedisCommand.of(Protocol.Command.ZADD, "test-legacy:y2023-m01-d01-h05", "1", "player1")).get();
+        transport.execute(RedisCommand.of(Protocol.Command.ZADD, "test-legacy:y2023-m01", "1", "player1")).get();
+
+        try (PeriodicLeaderboard<Integer> hourly = new PeriodicLeaderboard<>(redisExtension, "test-legacy", Integer.class,
+                new PeriodicLeaderboardOptions(new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 0),
+                        DefaultCycles.HOURLY).withRetention(new RetentionOptions(2, Duration.ofHours(1))))) {
+            Leaderboard<Integer> current = hourly.getLeaderboardNow();
+            current.updateOne("player1", 1).get();
+
+            assertEquals(Set.of("y2023-m01-d01-h05", hourly.getKeyNow()), hourly.getExistingKeys());
+            assertEquals(List.of("y2023-m01-d01-h05"),
+                    hourly.getKeysBetween(LocalDateTime.of(2023, 1, 1, 0, 0), LocalDateTime.of(2023, 1, 2, 0, 0)));
+            assertEquals(1, hourly.sweepExpiredCycles().get());
+            assertEquals(0L, transport.execute(RedisCommand.of(Protocol.Command.EXISTS, "test-legacy:y2023-m01-d01-h05")).get());
+            assertEquals(1L, transport.execute(RedisCommand.of(Protocol.Command.EXISTS, "test-legacy:y2023-m01")).get());
+            assertEquals(0, hourly.rebuildRegistry().get());
+            current.clear().get();
+        } finally {
+            transport.execute(RedisCommand.of(Protocol.Command.DEL, "test-legacy:y2023-m01")).get();
+        }
+    }
+
+    @Test
+    public void testRestoreKeepsCycleRetention(@TempDir Path directory) throws Exception {
+        Leaderboard<Integer> source = new Leaderboard<>(redisExtension, "test-restore-cycle-source", Integer.class,
+                new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 0));
+        source.clear().get();
+        source.updateOne("player1", 100).get();
+        Path file = directory.resolve("cycle.dump");
+        source.dump(file);
+
+        try (PeriodicLeaderboard<Integer> hourly = new PeriodicLeaderboard<>(redisExtension, "test-restore-cycle", Integer.class,
+                new PeriodicLeaderboardOptions(new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 0),
+                        DefaultCycles.HOURLY).withRetention(new RetentionOptions(2, Duration.ofHours(1))))) {
+            Leaderboard<Integer> current = hourly.getLeaderboardNow();
+            current.clear().get();
+            assertEquals(1L, current.restore(file));
+
+            long ttl = (Long) redisExtension.getTransport().execute(new RedisCommand(Protocol.Command.TTL, current.keyBytes())).get();
+            assertTrue(ttl > 2 * 3600 && ttl <= 3 * 3600, "ttl " + ttl);
+            assertTrue(hourly.getExistingKeys().contains(new String(current.keyBytes(), StandardCharsets.UTF_8)
+                    .substring("test-restore-cycle:".length())));
+            current.clear().get();
+        } finally {
+            source.clear().get();
+        }
+    }
+
+    @Test
+    public void testLeaderboardCacheAgingComparesAgedCounts() {
+        for (boolean swap : new boolean[]{false, true}) {
+            LeaderboardCache<String> cache = new LeaderboardCache<>(2);
+            cache.get("x", key -> key);
+            cache.get("y", key -> key);
+            // The first eviction removes the oldest of the equally used entries
+            cache.get("z", key -> key);
+            String frequent = swap ? "z" : "y";
+            String rare = swap ? "y" : "z";
+            for (int i = 0; i < 3; i++) {
+                cache.get(frequent, key -> key);
+            }
+            for (int i = 0; i < 2; i++) {
+                cache.get(rare, key -> key);
+            }
+
+            // The second eviction ages the counts 4 and 3 to 2 and 1 before choosing the victim
+            cache.get("n", key -> key);
+            assertTrue(cache.contains(frequent, frequent));
+            assertFalse(cache.contains(rare, rare));
+        }
+    }
+
+    @Test
+    public void testLeaderboardCacheCreatesInstancesOutsideTheMapLock() {
+        LeaderboardCache<String> cache = new LeaderboardCache<>(64);
+        // A factory re-entering the cache must not fail with a recursive update of the map
+        for (int i = 0; i < 1000; i++) {
+            String outer = "outer" + i;
+            assertEquals(outer, cache.get(outer, key -> cache.get("inner" + key, inner -> inner).substring(5)));
+        }
+        LeaderboardCacheStats stats = cache.stats();
+        assertEquals(64, stats.size());
+        assertEquals(2000 - 64, stats.evictions());
+    }
+
+    @Test
+    public void testEvictedCurrentCycleIsNotReused() {
+        LocalDateTime time = LocalDateTime.of(2024, 12, 25, 14, 30);
+        PeriodicLeaderboard<Integer> daily = new PeriodicLeaderboard<>(redisExtension, "test-evicted-cycle", Integer.class,
+                new PeriodicLeaderboardOptions(new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 0),
+                        DefaultCycles.DAILY).withCacheCapacity(1));
+        Leaderboard<Integer> memoized = daily.getLeaderboardAt(time);
+        daily.getLeaderboard("other");
+
+        Leaderboard<Integer> byKey = daily.getLeaderboard(daily.getKey(time));
+        assertNotSame(memoized, byKey);
+        assertSame(byKey, daily.getLeaderboardAt(time));
     }
-}
\ No newline at end of file
+}
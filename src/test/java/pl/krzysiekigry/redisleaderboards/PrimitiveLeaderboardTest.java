@@ -0,0 +1,95 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrimitiveLeaderboardTest {
+
+    private static RedisExtension redisExtension;
+
+    @BeforeAll
+    public static void setUp() {
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(10);
+        poolConfig.setMaxIdle(5);
+        poolConfig.setMinIdle(1);
+        JedisPool jedisPool = new JedisPool(poolConfig, "localhost", 6379, 1000, null);
+        redisExtension = new RedisExtension(jedisPool);
+        redisExtension.prepare();
+    }
+
+    @Test
+    public void testLongLeaderboard() throws ExecutionException, InterruptedException {
+        LongLeaderboard leaderboard = new LongLeaderboard(redisExtension, "test-long-leaderboard",
+                new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 0));
+        leaderboard.clear().get();
+
+        leaderboard.update(new String[]{"player1", "player2", "player3"}, new long[]{100L, 300L, 200L}).get();
+        leaderboard.update(new String[]{"player1"}, new long[]{50L}, UpdatePolicy.AGGREGATE).get();
+
+        LongEntryPage page = leaderboard.topPage(10).get();
+        assertEquals(3, page.size());
+        assertArrayEquals(new String[]{"player2", "player3", "player1"}, page.ids());
+        assertArrayEquals(new long[]{300L, 200L, 150L}, page.scores());
+        assertEquals(1L, page.rank(0));
+        assertEquals(3L, page.rank(2));
+
+        LongEntryPage second = leaderboard.listPage(2, 3).get();
+        assertEquals(2L, second.firstRank());
+        assertEquals("player3", second.id(0));
+        assertEquals(200L, second.score(0));
+
+        assertEquals(List.of(new Entry<>("player3", 200L, 2), new Entry<>("player1", 150L, 3)), second.asEntries());
+        assertEquals(new Entry<>("player2", 300L, 1), leaderboard.top(1).get().get(0));
+        assertEquals(new Entry<>("player1", 150L, 3), leaderboard.find("player1"));
+
+        assertThrows(IllegalArgumentException.class, () -> leaderboard.update(new String[]{"player1"}, new long[0]));
+    }
+
+    @Test
+    public void testDoubleLeaderboard() throws ExecutionException, InterruptedException {
+        DoubleLeaderboard leaderboard = new DoubleLeaderboard(redisExtension, "test-double-leaderboard",
+                new LeaderboardOptions(SortPolicy.LOW_TO_HIGH, UpdatePolicy.BEST, 2));
+        leaderboard.clear().get();
+
+        leaderboard.update(new String[]{"player1", "player2", "player3"}, new double[]{1.5, 0.25, 2.75}).get();
+        leaderboard.update(new String[]{"player2"}, new double[]{0.5}).get();
+
+        DoubleEntryPage page = leaderboard.topPage(10).get();
+        assertArrayEquals(new String[]{"player2", "player1"}, page.ids());
+        assertArrayEquals(new double[]{0.25, 1.5}, page.scores());
+        assertEquals(Double.valueOf(0.25), page.boxedScore(0));
+    }
+
+    @Test
+    public void testExportPages() throws ExecutionException, InterruptedException {
+        LongLeaderboard leaderboard = new LongLeaderboard(redisExtension, "test-long-export",
+                new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 0));
+        leaderboard.clear().get();
+
+        String[] ids = new String[100];
+        long[] scores = new long[100];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = "player" + i;
+            scores[i] = i;
+        }
+        leaderboard.update(ids, scores).get();
+
+        List<LongEntryPage> pages = new ArrayList<>();
+        Iterator<LongEntryPage> iterator = leaderboard.exportPages(25);
+        iterator.forEachRemaining(pages::add);
+        assertEquals(4, pages.size());
+        assertEquals(76L, pages.get(3).firstRank());
+        assertEquals(0L, pages.get(3).score(24));
+        assertFalse(iterator.hasNext());
+    }
+}
@@ -0,0 +1,68 @@
+package pl.krzysiekigry.redisleaderboards;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplyDecoderTest {
+
+    private static double parse(String score) {
+        return ReplyDecoder.parseScore(score.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testParsesCommonScores() {
+        assertEquals(0.0, parse("0"));
+        assertEquals(42.0, parse("42"));
+        assertEquals(-42.0, parse("-42"));
+        assertEquals(1.5, parse("1.5"));
+        assertEquals(-0.25, parse("-0.25"));
+        assertEquals(0.1, parse("0.1"));
+        assertEquals(9007199254740992.0, parse("9007199254740992"));
+        assertEquals(Double.doubleToRawLongBits(-0.0), Double.doubleToRawLongBits(parse("-0")));
+    }
+
+    @Test
+    public void testFallsBackForOtherFormats() {
+        assertEquals(0.10000000000000001, parse("0.10000000000000001"));
+        assertEquals(1e+20, parse("1e+20"));
+        assertEquals(9223372036854775807.0, parse("9223372036854775807"));
+        assertEquals(Double.POSITIVE_INFINITY, parse("inf"));
+        assertEquals(Double.NEGATIVE_INFINITY, parse("-inf"));
+        assertThrows(NumberFormatException.class, () -> parse("not-a-number"));
+    }
+
+    @Test
+    public void testMatchesJdkParser() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            String score = switch (i % 3) {
+                case 0 -> Long.toString(random.nextLong() >> random.nextInt(64));
+                case 1 -> Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(12)));
+                default -> String.format(Locale.ROOT, "%.17g", (random.nextDouble() - 0.5) * 1000).trim();
+            };
+            assertEquals(Double.parseDouble(score), parse(score), score);
+        }
+    }
+
+    @Test
+    public void testDecodesPairs() {
+        List<Object> reply = new ArrayList<>();
+        reply.add("gracz-żółw".getBytes(StandardCharsets.UTF_8));
+        reply.add("12.5".getBytes(StandardCharsets.US_ASCII));
+        reply.add("player".getBytes(StandardCharsets.UTF_8));
+        reply.add("-3".getBytes(StandardCharsets.US_ASCII));
+
+        List<String> decoded = new ArrayList<>();
+        int pairs = ReplyDecoder.forEachPair(reply, (index, member, score) ->
+                decoded.add(index + ":" + MemberCodec.UTF8.decode(member) + "=" + ReplyDecoder.parseScore(score)));
+        assertEquals(2, pairs);
+        assertEquals(List.of("0:gracz-żółw=12.5", "1:player=-3.0"), decoded);
+    }
+}
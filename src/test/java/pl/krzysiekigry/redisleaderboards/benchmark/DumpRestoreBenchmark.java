@@ -0,0 +1,80 @@
+package pl.krzysiekigry.redisleaderboards.benchmark;
+
+import pl.krzysiekigry.redisleaderboards.*;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Throughput of dumping a leaderboard to a binary file and restoring it.
+ * <p>
+ * Fills a leaderboard, dumps it with {@link Leaderboard#dump(Path)}, restores the file into a second
+ * leaderboard with {@link Leaderboard#restore(Path)} and reports entries per second of both
+ * directions next to the file size.
+ * <p>
+ * Usage: Run this as a regular Java application (main method), optionally passing the number of members.
+ * Requirements: Redis server running on localhost:6379 (the default of 1M members needs about 200MB)
+ */
+public class DumpRestoreBenchmark {
+
+    private static final String SOURCE_KEY = "dump-benchmark-source";
+    private static final String TARGET_KEY = "dump-benchmark-target";
+    private static final int DEFAULT_MEMBERS = 1_000_000;
+    private static final int BATCH_SIZE = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        int members = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_MEMBERS;
+
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(8);
+        try (JedisPool jedisPool = new JedisPool(poolConfig, "localhost", 6379, 10000, null)) {
+            RedisExtension redisExtension = new RedisExtension(jedisPool);
+            redisExtension.prepare();
+            LeaderboardOptions options = new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 0);
+            Leaderboard<Long> source = new Leaderboard<>(redisExtension, SOURCE_KEY, Long.class, options);
+            Leaderboard<Long> target = new Leaderboard<>(redisExtension, TARGET_KEY, Long.class, options);
+            source.clear().get();
+            target.clear().get();
+
+            Random random = new Random(42);
+            for (int offset = 0; offset < members; offset += BATCH_SIZE) {
+                int size = Math.min(BATCH_SIZE, members - offset);
+                List<EntryUpdateQuery<Long>> batch = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    batch.add(new EntryUpdateQuery<>("player:" + (offset + i), (long) random.nextInt(1_000_000)));
+                }
+                source.update(batch).get();
+            }
+
+            Path file = Files.createTempFile("leaderboard", ".dump");
+            try {
+                System.out.println("=== Dump/Restore Benchmark ===");
+                System.out.printf("Members: %,d\n\n", members);
+
+                long start = System.nanoTime();
+                long dumped = source.dump(file);
+                report("Dump", dumped, System.nanoTime() - start);
+                System.out.printf("%-10s %,.1f MB (%.1f bytes per entry)\n", "File", Files.size(file) / (1024.0 * 1024.0),
+                        (double) Files.size(file) / Math.max(1, dumped));
+
+                start = System.nanoTime();
+                long restored = target.restore(file);
+                report("Restore", restored, System.nanoTime() - start);
+            } finally {
+                Files.deleteIfExists(file);
+                source.clear().get();
+                target.clear().get();
+            }
+        }
+    }
+
+    private static void report(String operation, long entries, long nanos) {
+        System.out.printf("%-10s %,d entries in %,d ms (%,.0f entries/s)\n", operation, entries, nanos / 1_000_000,
+                entries / (nanos / 1e9));
+    }
+}
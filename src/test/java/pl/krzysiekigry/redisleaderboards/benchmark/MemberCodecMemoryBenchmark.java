@@ -0,0 +1,110 @@
+package pl.krzysiekigry.redisleaderboards.benchmark;
+
+import pl.krzysiekigry.redisleaderboards.*;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Memory comparison of the member codecs on a large leaderboard.
+ * <p>
+ * Fills one sorted set per {@link MemberCodec} with the same decimal {@code long} player ids
+ * and reports {@code MEMORY USAGE} of each key together with the growth of {@code used_memory}.
+ * <p>
+ * Savings depend on the id width: allocator size classes absorb small differences, so short ids
+ * gain little while 64-bit, snowflake-style ids shrink from 19 text bytes to 8 or 9 binary bytes.
+ * <p>
+ * Usage: Run this as a regular Java application (main method), optionally passing the number of
+ * members and the number of decimal digits per id (default 19).
+ * Requirements: Redis server running on localhost:6379 (the default of 1M members needs about 200MB)
+ */
+public class MemberCodecMemoryBenchmark {
+
+    private static final String BENCHMARK_KEY = "member-codec-benchmark";
+    private static final int DEFAULT_MEMBERS = 1_000_000;
+    private static final int DEFAULT_ID_DIGITS = 19;
+    private static final int BATCH_SIZE = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        int members = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_MEMBERS;
+        int digits = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ID_DIGITS;
+
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(4);
+        try (JedisPool jedisPool = new JedisPool(poolConfig, "localhost", 6379, 10000, null)) {
+            RedisExtension redisExtension = new RedisExtension(jedisPool);
+            redisExtension.prepare();
+
+            Map<String, MemberCodec> codecs = new LinkedHashMap<>();
+            codecs.put("UTF8", MemberCodec.UTF8);
+            codecs.put("FIXED_64", MemberCodec.FIXED_64);
+            codecs.put("VARINT", MemberCodec.VARINT);
+
+            System.out.println("=== Member Codec Memory Benchmark ===");
+            System.out.printf("Members per leaderboard: %,d, id digits: %d\n\n", members, digits);
+            System.out.printf("%-10s %16s %16s %12s\n", "Codec", "MEMORY USAGE", "used_memory", "vs UTF8");
+
+            long baseline = 0;
+            for (Map.Entry<String, MemberCodec> codec : codecs.entrySet()) {
+                String key = BENCHMARK_KEY + ":" + codec.getKey();
+                Leaderboard<Long> leaderboard = new Leaderboard<>(redisExtension, key, Long.class,
+                        new LeaderboardOptions(SortPolicy.HIGH_TO_LOW, UpdatePolicy.REPLACE, 0).withMemberCodec(codec.getValue()));
+                leaderboard.clear().get();
+
+                long usedBefore = usedMemory(jedisPool);
+                populate(leaderboard, members, digits);
+                long usedAfter = usedMemory(jedisPool);
+
+                long keyMemory;
+                try (Jedis jedis = jedisPool.getResource()) {
+                    keyMemory = jedis.memoryUsage(key, 0);
+                }
+                if (baseline == 0) {
+                    baseline = keyMemory;
+                }
+                System.out.printf("%-10s %16s %16s %11.1f%%\n", codec.getKey(),
+                        formatBytes(keyMemory), formatBytes(usedAfter - usedBefore),
+                        100.0 * (keyMemory - baseline) / baseline);
+
+                leaderboard.clear().get();
+            }
+        }
+    }
+
+    private static void populate(Leaderboard<Long> leaderboard, int members, int digits) throws Exception {
+        long lowest = (long) Math.pow(10, digits - 1);
+        long range = Math.min(Long.MAX_VALUE - lowest, lowest * 9 - 1);
+        // Same seed for every codec, so all leaderboards hold the same ids and scores
+        Random random = new Random(42);
+        for (int offset = 0; offset < members; offset += BATCH_SIZE) {
+            int size = Math.min(BATCH_SIZE, members - offset);
+            List<EntryUpdateQuery<Long>> batch = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                long playerId = lowest + Math.floorMod(random.nextLong(), range);
+                batch.add(new EntryUpdateQuery<>(Long.toString(playerId), (long) random.nextInt(1_000_000)));
+            }
+            leaderboard.update(batch).get();
+        }
+    }
+
+    private static long usedMemory(JedisPool jedisPool) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            for (String line : jedis.info("memory").split("\r\n")) {
+                if (line.startsWith("used_memory:")) {
+                    return Long.parseLong(line.substring("used_memory:".length()));
+                }
+            }
+        }
+        throw new IllegalStateException("used_memory missing from INFO memory");
+    }
+
+    private static String formatBytes(long bytes) {
+        return String.format("%,.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}